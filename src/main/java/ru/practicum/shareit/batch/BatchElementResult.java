@@ -0,0 +1,29 @@
+package ru.practicum.shareit.batch;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Результат обработки одного элемента пакетного запроса: созданный объект или текст ошибки.
+ * index — позиция элемента во входном списке.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchElementResult<T> {
+
+    private int index;
+    private T result;
+    private String error;
+
+    public static <T> BatchElementResult<T> success(int index, T result) {
+        return new BatchElementResult<>(index, result, null);
+    }
+
+    public static <T> BatchElementResult<T> failure(int index, String error) {
+        return new BatchElementResult<>(index, null, error);
+    }
+}
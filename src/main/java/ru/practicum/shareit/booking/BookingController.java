@@ -1,38 +1,68 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.batch.BatchElementResult;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingRequest;
+import ru.practicum.shareit.idempotency.IdempotencyService;
+import ru.practicum.shareit.streaming.NdjsonWriter;
 import ru.practicum.shareit.validation.Validation;
 
 import java.util.List;
+import java.util.Map;
 
 @Slf4j
 
 @RestController
 @RequestMapping(path = "/bookings")
 @RequiredArgsConstructor
+@Validated
 public class BookingController {
 
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final Validation validation;
     private final BookingServiceImpl bookingServiceImpl;
+    private final ObjectMapper objectMapper;
+    private final IdempotencyService idempotencyService;
 
 
     @PostMapping
     public BookingDto createBooking(
             @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody BookingRequest request) {
         log.info("Бронирование: запрос на создание {}", request);
-        validation.userIdValidation(userId);
-        validation.itemExistValidation(request.getItemId());
-        validation.itemStatusValidation(request.getItemId());
-        BookingDto createBooking = bookingServiceImpl.create(userId, request);
-        log.info("Бронирование создано с id={}", createBooking.getId());
-        return createBooking;
+        return idempotencyService.execute(idempotencyKey, userId, "POST /bookings", request, BookingDto.class, () -> {
+            validation.userIdValidation(userId);
+            validation.itemExistValidation(request.getItemId());
+            validation.itemStatusValidation(request.getItemId());
+            BookingDto createBooking = bookingServiceImpl.create(userId, request);
+            log.info("Бронирование создано с id={}", createBooking.getId());
+            return createBooking;
+        });
+    }
 
+    @PostMapping("/batch")
+    public List<BatchElementResult<BookingDto>> createBookings(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestBody List<BookingRequest> requests) {
+        log.info("Бронирование: запрос на пакетное создание {} бронирований", requests.size());
+        validation.userIdValidation(userId);
+        validation.batchSizeValidation(requests);
+        List<BatchElementResult<BookingDto>> results = bookingServiceImpl.createAll(userId, requests);
+        log.info("Бронирования: пакетное создание завершено, элементов {}", results.size());
+        return results;
     }
 
 
@@ -62,23 +92,88 @@ public class BookingController {
 
 
     @GetMapping
-    public List<BookingDto> getAllBookings(
+    public ResponseEntity<List<BookingDto>> getAllBookings(
             @RequestHeader("X-Sharer-User-Id") Long userId,
-            @RequestParam(defaultValue = "ALL") States state) {
+            @RequestParam(defaultValue = "ALL") States state,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
+            @RequestParam(required = false) @Positive Integer size) {
 
         validation.userIdValidation(userId);
-        return bookingServiceImpl.getAllBookingsByUserAndStates(userId, state);
+        List<BookingDto> bookings = bookingServiceImpl.getAllBookingsByUserAndStates(userId, state, cursor, from, size);
+        return withNextCursor(bookings, size);
     }
 
 
     @GetMapping("/owner")
-    public List<BookingDto> getAllBookingsByOwner(
+    public ResponseEntity<List<BookingDto>> getAllBookingsByOwner(
+
+            @RequestHeader("X-Sharer-User-Id") Long ownerId,
+            @RequestParam(defaultValue = "ALL") States state,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
+            @RequestParam(required = false) @Positive Integer size) {
+
+        validation.userIdForGetBookingsValidation(ownerId);
+        validation.ownerExistValidation(ownerId);
+        List<BookingDto> bookings = bookingServiceImpl.getAllBookingsByOwnerItemsAndStates(ownerId, state, cursor,
+                from, size);
+        return withNextCursor(bookings, size);
+    }
+
+    @GetMapping("/owner/summary")
+    public Map<States, Long> getOwnerSummary(@RequestHeader("X-Sharer-User-Id") Long ownerId) {
+        log.info("Бронирование: запрос сводки по состояниям для владельца id={}", ownerId);
+        validation.userIdForGetBookingsValidation(ownerId);
+        validation.ownerExistValidation(ownerId);
+        return bookingServiceImpl.getOwnerSummary(ownerId);
+    }
 
+    @GetMapping(path = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBookings(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestParam(defaultValue = "ALL") States state) {
+
+        validation.userIdValidation(userId);
+        log.info("Бронирование: потоковая выгрузка бронирований пользователя id={} в состоянии {}", userId, state);
+        return ndjson(out -> {
+            NdjsonWriter<BookingDto> writer = new NdjsonWriter<>(objectMapper, BookingDto.class, out);
+            long count = bookingServiceImpl.streamAllBookingsByUserAndStates(userId, state, writer);
+            writer.flush();
+            log.info("Бронирование: выгружено {} бронирований пользователя id={}", count, userId);
+        });
+    }
+
+    @GetMapping(path = "/owner/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllBookingsByOwner(
             @RequestHeader("X-Sharer-User-Id") Long ownerId,
             @RequestParam(defaultValue = "ALL") States state) {
 
         validation.userIdForGetBookingsValidation(ownerId);
         validation.ownerExistValidation(ownerId);
-        return bookingServiceImpl.getAllBookingsByOwnerItemsAndStates(ownerId, state);
+        log.info("Бронирование: потоковая выгрузка бронирований владельца id={} в состоянии {}", ownerId, state);
+        return ndjson(out -> {
+            NdjsonWriter<BookingDto> writer = new NdjsonWriter<>(objectMapper, BookingDto.class, out);
+            long count = bookingServiceImpl.streamAllBookingsByOwnerItemsAndStates(ownerId, state, writer);
+            writer.flush();
+            log.info("Бронирование: выгружено {} бронирований владельца id={}", count, ownerId);
+        });
+    }
+
+    private static ResponseEntity<StreamingResponseBody> ndjson(StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    // без size список отдаётся целиком, как до появления пагинации, и следующей страницы нет
+    private static ResponseEntity<List<BookingDto>> withNextCursor(List<BookingDto> bookings, Integer size) {
+        String nextCursor = size == null ? null : BookingCursor.next(bookings, size);
+        if (nextCursor == null) {
+            return ResponseEntity.ok(bookings);
+        }
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, nextCursor)
+                .body(bookings);
     }
 }
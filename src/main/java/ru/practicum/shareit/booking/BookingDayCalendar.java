@@ -0,0 +1,109 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.booking.dto.AvailabilitySlotDto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.LongPredicate;
+
+/**
+ * Занятость вещи по дням: бит i соответствует дню origin + i (в днях от эпохи).
+ * День занят, если его пересекает хотя бы одно бронирование в статусе APPROVED или WAITING.
+ * Календарь хранит только дни в пределах {@link #HORIZON_DAYS} от дня создания: дни за горизонтом
+ * не отмечаются и считаются свободными, так что размер битовой карты и число шагов ограничены.
+ * Класс не потокобезопасен.
+ */
+class BookingDayCalendar {
+
+    static final int HORIZON_DAYS = 36_600;
+
+    private final long minDay;
+    private final long maxDay;
+    private BitSet days = new BitSet();
+    private long origin;
+    private boolean empty = true;
+
+    BookingDayCalendar() {
+        this(LocalDate.now().toEpochDay());
+    }
+
+    BookingDayCalendar(long anchorDay) {
+        this.minDay = anchorDay - HORIZON_DAYS;
+        this.maxDay = anchorDay + HORIZON_DAYS;
+    }
+
+    void setBusy(long fromDay, long toDay) {
+        update(fromDay, toDay, day -> true);
+    }
+
+    /**
+     * Пересчитывает дни [fromDay, toDay], попадающие в горизонт: день занят, если busy для него истинно.
+     */
+    void update(long fromDay, long toDay, LongPredicate busy) {
+        for (long day = Math.max(fromDay, minDay); day <= Math.min(toDay, maxDay); day++) {
+            set(day, busy.test(day));
+        }
+    }
+
+    void set(long day, boolean busy) {
+        if (day < minDay || day > maxDay) {
+            return;
+        }
+        if (empty) {
+            if (!busy) {
+                return;
+            }
+            origin = day;
+            empty = false;
+        } else if (day < origin) {
+            if (!busy) {
+                return;
+            }
+            shiftOrigin(day);
+        }
+        days.set(Math.toIntExact(day - origin), busy);
+    }
+
+    boolean isBusy(long day) {
+        return !empty && day >= origin && day <= maxDay && days.get(Math.toIntExact(day - origin));
+    }
+
+    /**
+     * Свободные и занятые периоды в диапазоне [fromDay, toDay], соседние дни с одинаковым состоянием объединяются.
+     */
+    List<AvailabilitySlotDto> slots(long fromDay, long toDay) {
+        List<AvailabilitySlotDto> slots = new ArrayList<>();
+        long day = fromDay;
+        while (day <= toDay) {
+            boolean busy = isBusy(day);
+            long end = Math.min((busy ? nextFree(day) : nextBusy(day)) - 1, toDay);
+            slots.add(new AvailabilitySlotDto(LocalDate.ofEpochDay(day), LocalDate.ofEpochDay(end), !busy));
+            day = end + 1;
+        }
+        return slots;
+    }
+
+    private long nextBusy(long day) {
+        if (empty || day > maxDay) {
+            return Long.MAX_VALUE;
+        }
+        int next = days.nextSetBit(Math.toIntExact(Math.max(day - origin, 0)));
+        return next < 0 ? Long.MAX_VALUE : origin + next;
+    }
+
+    private long nextFree(long day) {
+        return origin + days.nextClearBit(Math.toIntExact(day - origin));
+    }
+
+    private void shiftOrigin(long newOrigin) {
+        int shift = Math.toIntExact(origin - newOrigin);
+        BitSet shifted = new BitSet(days.length() + shift);
+        for (int i = days.nextSetBit(0); i >= 0; i = days.nextSetBit(i + 1)) {
+            shifted.set(i + shift);
+        }
+        days = shifted;
+        origin = newOrigin;
+    }
+}
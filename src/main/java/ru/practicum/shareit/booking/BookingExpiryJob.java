@@ -0,0 +1,144 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.outbox.BookingEventType;
+import ru.practicum.shareit.outbox.BookingOutbox;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Отменяет бронирования, оставшиеся в {@link Status#WAITING} после начала. В отдельной транзакции на пачку
+ * блокирует самые ранние такие бронирования (SKIP LOCKED — занятые строки не ждут и не обрабатывают дважды)
+ * и переводит их в {@link Status#CANCELED} одним UPDATE, затем записывает события в outbox. Расписания вещей
+ * и счётчики владельцев меняются только после фиксации пачки. Между пачками выдерживается пауза.
+ * Работает через JDBC, как {@link ru.practicum.shareit.outbox.OutboxDispatcher}: сущности не загружаются.
+ */
+@Slf4j
+@Component
+public class BookingExpiryJob {
+
+    private static final String LOCK_CHUNK = "SELECT booking_id FROM bookings WHERE status = 'WAITING' "
+            + "AND start_date < :now ORDER BY start_date LIMIT :limit FOR UPDATE SKIP LOCKED";
+    private static final String SELECT_LOCKED = "SELECT b.booking_id, b.item_id, i.owner_id, b.booker_id, "
+            + "b.start_date, b.end_date FROM bookings b JOIN items i ON i.item_id = b.item_id "
+            + "WHERE b.booking_id IN (:ids) AND b.status = 'WAITING'";
+    private static final String CANCEL = "UPDATE bookings SET status = 'CANCELED' "
+            + "WHERE booking_id IN (:ids) AND status = 'WAITING'";
+
+    // только данные, нужные outbox, расписаниям и счётчикам; в контекст JPA не попадают
+    private static final RowMapper<Booking> BOOKING = (rs, rowNum) -> {
+        User owner = new User();
+        owner.setId(rs.getLong("owner_id"));
+        Item item = new Item();
+        item.setId(rs.getLong("item_id"));
+        item.setOwner(owner);
+        User booker = new User();
+        booker.setId(rs.getLong("booker_id"));
+
+        Booking booking = new Booking();
+        booking.setBookingId(rs.getLong("booking_id"));
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStartDate(rs.getObject("start_date", LocalDateTime.class));
+        booking.setEndDate(rs.getObject("end_date", LocalDateTime.class));
+        booking.setStatus(Status.CANCELED);
+        return booking;
+    };
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final OwnerBookingCounters ownerCounters;
+    private final BookingOutbox outbox;
+    private final BookingExpiryProperties properties;
+    private final Timer chunkTimer;
+    private final Counter expired;
+
+    public BookingExpiryJob(NamedParameterJdbcTemplate jdbc, PlatformTransactionManager transactionManager,
+                            BookingIntervalIndex bookingIntervalIndex, OwnerBookingCounters ownerCounters,
+                            BookingOutbox outbox, BookingExpiryProperties properties, MeterRegistry meterRegistry) {
+        this.jdbc = jdbc;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.ownerCounters = ownerCounters;
+        this.outbox = outbox;
+        this.properties = properties;
+        this.chunkTimer = Timer.builder("booking.expiry.chunk")
+                .description("Отмена одной пачки просроченных неподтверждённых бронирований")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.expired = Counter.builder("booking.expiry.rows")
+                .description("Неподтверждённые бронирования, отменённые после начала")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking-expiry.interval:PT1M}")
+    public void run() {
+        if (properties.isEnabled()) {
+            expire(LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Отменяет не больше {@code maxChunksPerRun} пачек бронирований, начавшихся раньше {@code now},
+     * и возвращает число отменённых.
+     */
+    public int expire(LocalDateTime now) {
+        int total = 0;
+        for (int chunk = 0; chunk < properties.getMaxChunksPerRun(); chunk++) {
+            if (chunk > 0 && !pause()) {
+                break;
+            }
+            Integer cancelled = chunkTimer.record(() -> transactionTemplate.execute(status -> expireChunk(now)));
+            total += cancelled;
+            if (cancelled < properties.getChunkSize()) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Отменено неподтверждённых бронирований после начала: {}", total);
+        }
+        return total;
+    }
+
+    private int expireChunk(LocalDateTime now) {
+        List<Long> ids = jdbc.queryForList(LOCK_CHUNK, Map.of("now", now, "limit", properties.getChunkSize()),
+                Long.class);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        // строки бронирований заблокированы, вещи и владельцы читаются без блокировки
+        List<Booking> bookings = jdbc.query(SELECT_LOCKED, Map.of("ids", ids), BOOKING);
+        jdbc.update(CANCEL, Map.of("ids", ids));
+        outbox.recordAll(BookingEventType.EXPIRED, bookings);
+        for (Booking booking : bookings) {
+            bookingIntervalIndex.update(booking);
+            ownerCounters.onStatusChanged(booking, Status.WAITING);
+        }
+        expired.increment(bookings.size());
+        return bookings.size();
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(properties.getPauseBetweenChunks());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
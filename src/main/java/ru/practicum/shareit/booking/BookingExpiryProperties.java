@@ -0,0 +1,22 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Настройки отмены неподтверждённых бронирований, чьё начало уже прошло: размер пачки, число пачек
+ * за запуск и пауза между пачками, чтобы блокировки строк были короткими и не шли подряд.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "shareit.booking-expiry")
+public class BookingExpiryProperties {
+
+    private boolean enabled = true;
+    private int chunkSize = 500;
+    private int maxChunksPerRun = 20;
+    private Duration pauseBetweenChunks = Duration.ofMillis(100);
+}
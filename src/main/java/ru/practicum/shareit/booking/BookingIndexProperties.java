@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Настройки расписаний {@link BookingIntervalIndex}: сколько вещей держится в памяти и как долго расписание
+ * используется без перечитывания из базы. Изменения с других экземпляров приложения попадают в расписание
+ * не позже чем через {@code maxAge}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "shareit.booking-index")
+public class BookingIndexProperties {
+
+    private int maxItems = 10_000;
+    private Duration maxAge = Duration.ofMinutes(5);
+}
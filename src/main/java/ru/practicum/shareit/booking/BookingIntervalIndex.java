@@ -0,0 +1,480 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.AvailabilitySlotDto;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.ItemBookingInterval;
+import ru.practicum.shareit.exception.ConflictException;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Не закончившиеся бронирования в статусах APPROVED и WAITING по каждой вещи: {@link BookingIntervalTree}
+ * для проверки пересечений и {@link BookingDayCalendar} для календаря занятости. Расписание вещи загружается
+ * из базы при первом обращении и дальше поддерживается при создании и подтверждении бронирований.
+ * Расписания других экземпляров приложения об этих изменениях не узнают, поэтому {@link #refresh()} выгружает
+ * расписания старше {@code maxAge}, а пересечение, найденное только в расписании, перепроверяется в базе
+ * до ответа 409. В памяти держится не больше {@code maxItems} расписаний: лишние выгружаются начиная с тех,
+ * к которым дольше всех не обращались.
+ * Окончательную проверку пересечений выполняет ограничение bookings_no_overlap в базе.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingIntervalIndex {
+
+    static final Set<Status> ACTIVE = EnumSet.of(Status.APPROVED, Status.WAITING);
+
+    // выгрузка сразу до этой доли maxItems, чтобы сортировка по времени обращения не шла на каждую загрузку
+    private static final double TRIM_TO = 0.9;
+
+    private final BookingRepository bookingRepository;
+    private final BookingIndexProperties properties;
+
+    private final Map<Long, ItemSchedule> schedules = new ConcurrentHashMap<>();
+    private final AtomicBoolean trimming = new AtomicBoolean();
+
+    public boolean isFree(Long itemId, LocalDateTime start, LocalDateTime end) {
+        ItemSchedule schedule = lock(itemId);
+        try {
+            return !schedule.intervals.overlaps(start, end);
+        } finally {
+            schedule.lock.unlock();
+        }
+    }
+
+    public List<AvailabilitySlotDto> getAvailability(Long itemId, LocalDate from, LocalDate to) {
+        ItemSchedule schedule = lock(itemId);
+        try {
+            return schedule.calendar.slots(from.toEpochDay(), to.toEpochDay());
+        } finally {
+            schedule.lock.unlock();
+        }
+    }
+
+    /**
+     * Проверяет, что новое бронирование не пересекается с существующими, и сохраняет его.
+     * Проверка и сохранение выполняются под блокировкой расписания вещи. Блокировка — {@link ReentrantLock},
+     * а не монитор: сохранение обращается к базе и не должно закреплять виртуальный поток за несущим.
+     * Если пересечение есть только в расписании, оно отстало от базы: бронирование сохраняется,
+     * а расписание выгружается и при следующем обращении читается заново.
+     */
+    public Booking reserve(Booking booking, Supplier<Booking> save) {
+        Long itemId = booking.getItem().getId();
+        ItemSchedule schedule = lock(itemId);
+        boolean stale = false;
+        try {
+            if (schedule.intervals.overlaps(booking.getStartDate(), booking.getEndDate())) {
+                if (overlapsInDatabase(booking)) {
+                    throw new ConflictException(conflictMessage(booking));
+                }
+                stale = true;
+            }
+            Booking saved = save.get();
+            if (!stale) {
+                removeOnRollback(schedule, saved);
+                schedule.add(saved.getBookingId(), saved.getStartDate(), saved.getEndDate());
+            }
+            return saved;
+        } finally {
+            if (stale) {
+                unload(itemId, schedule);
+            }
+            schedule.lock.unlock();
+        }
+    }
+
+    /**
+     * Пакетный вариант {@link #reserve}: бронирования, пересекающиеся с существующими или с предыдущими бронированиями
+     * пакета, отклоняются, остальные сохраняются одним вызовом saveAll. Расписания всех вещей пакета загружаются
+     * одним запросом и блокируются в порядке id вещи. Возвращает список той же длины, что и вход: сохранённое
+     * бронирование или null для отклонённого. Отставшие от базы расписания выгружаются, как в {@link #reserve}.
+     */
+    public List<Booking> reserveAll(List<Booking> bookings, UnaryOperator<List<Booking>> saveAll) {
+        Map<Long, ItemSchedule> involved = lockAll(bookings.stream()
+                .map(booking -> booking.getItem().getId())
+                .collect(Collectors.toCollection(TreeSet::new)));
+        Set<Long> stale = new HashSet<>();
+        try {
+            Map<Long, BookingIntervalTree> pending = new HashMap<>();
+            List<Booking> accepted = new ArrayList<>();
+            boolean[] isAccepted = new boolean[bookings.size()];
+            long pendingId = -1;
+            for (int i = 0; i < bookings.size(); i++) {
+                Booking booking = bookings.get(i);
+                Long itemId = booking.getItem().getId();
+                BookingIntervalTree batch = pending.computeIfAbsent(itemId, id -> new BookingIntervalTree());
+                if (batch.overlaps(booking.getStartDate(), booking.getEndDate())) {
+                    continue;
+                }
+                if (involved.get(itemId).intervals.overlaps(booking.getStartDate(), booking.getEndDate())) {
+                    if (overlapsInDatabase(booking)) {
+                        continue;
+                    }
+                    stale.add(itemId);
+                }
+                batch.add(pendingId--, booking.getStartDate(), booking.getEndDate());
+                accepted.add(booking);
+                isAccepted[i] = true;
+            }
+
+            Iterator<Booking> saved = (accepted.isEmpty() ? accepted : saveAll.apply(accepted)).iterator();
+            List<Booking> results = new ArrayList<>(bookings.size());
+            for (boolean stored : isAccepted) {
+                if (!stored) {
+                    results.add(null);
+                    continue;
+                }
+                Booking booking = saved.next();
+                Long itemId = booking.getItem().getId();
+                if (!stale.contains(itemId)) {
+                    ItemSchedule schedule = involved.get(itemId);
+                    removeOnRollback(schedule, booking);
+                    schedule.add(booking.getBookingId(), booking.getStartDate(), booking.getEndDate());
+                }
+                results.add(booking);
+            }
+            return results;
+        } finally {
+            stale.forEach(itemId -> unload(itemId, involved.get(itemId)));
+            involved.values().forEach(schedule -> schedule.lock.unlock());
+        }
+    }
+
+    /**
+     * Выгружает расписания старше {@code maxAge}, чтобы подхватить изменения с других экземпляров и убрать
+     * закончившиеся бронирования, и лишние сверх {@code maxItems}.
+     */
+    @Scheduled(fixedDelayString = "${shareit.booking-index.refresh-interval:PT1M}")
+    public void refresh() {
+        long loadedBefore = System.nanoTime() - properties.getMaxAge().toNanos();
+        int expired = 0;
+        for (Map.Entry<Long, ItemSchedule> entry : schedules.entrySet()) {
+            if (entry.getValue().loadedAt - loadedBefore < 0 && evict(entry.getKey(), entry.getValue())) {
+                expired++;
+            }
+        }
+        trim();
+        log.debug("Выгружено устаревших расписаний вещей: {}, в памяти: {}", expired, schedules.size());
+    }
+
+    static String conflictMessage(Booking booking) {
+        return "Вещь с id=" + booking.getItem().getId() + " уже забронирована на даты с "
+                + booking.getStartDate() + " по " + booking.getEndDate();
+    }
+
+    /**
+     * Отражает смену статуса бронирования. Ставшее активным бронирование добавляется в загруженное расписание сразу
+     * и убирается при откате, как в {@link #reserve}; снятое с брони освобождает дни только после фиксации,
+     * до неё проверка пересечений строже базы. Если расписания ещё нет, изменение применяется после фиксации
+     * к расписанию, которое к тому моменту начало загружаться: загрузка могла прочитать базу до фиксации.
+     */
+    public void update(Booking booking) {
+        Long itemId = booking.getItem().getId();
+        long bookingId = booking.getBookingId();
+        LocalDateTime start = booking.getStartDate();
+        LocalDateTime end = booking.getEndDate();
+        boolean active = ACTIVE.contains(booking.getStatus());
+        ItemSchedule schedule = schedules.get(itemId);
+        if (active && schedule != null) {
+            schedule.lock.lock();
+            try {
+                if (schedule.loaded) {
+                    if (!schedule.intervals.contains(bookingId)) {
+                        removeOnRollback(schedule, booking);
+                        schedule.add(bookingId, start, end);
+                    }
+                    return;
+                }
+            } finally {
+                schedule.lock.unlock();
+            }
+        }
+        afterCommit(() -> {
+            ItemSchedule committed = schedules.get(itemId);
+            if (committed == null) {
+                // загрузка, которая начнётся позже, прочитает уже зафиксированный статус
+                return;
+            }
+            committed.lock.lock();
+            try {
+                if (!committed.loaded) {
+                    return;
+                }
+                if (active) {
+                    committed.add(bookingId, start, end);
+                } else {
+                    committed.remove(bookingId, start, end);
+                }
+            } finally {
+                committed.lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Расписание вещи с захваченной блокировкой. Незагруженное расписание публикуется пустым и уже заблокированным
+     * до запроса к базе, поэтому изменение, зафиксированное во время загрузки, найдёт его в {@link #update}
+     * и будет применено после неё. Запрос выполняется вне computeIfAbsent, чтобы не держать блокировку сегмента карты.
+     */
+    private ItemSchedule lock(Long itemId) {
+        while (true) {
+            ItemSchedule schedule = schedules.get(itemId);
+            if (schedule == null) {
+                ItemSchedule created = publish(itemId);
+                if (created != null) {
+                    load(Map.of(itemId, created), () -> bookingRepository.findAllByItemIdAndStatusInAndEndDateAfter(
+                            itemId, ACTIVE, LocalDateTime.now()), interval -> itemId);
+                    return created;
+                }
+                continue;
+            }
+            schedule.lock.lock();
+            if (schedule.loaded) {
+                schedule.lastAccess = System.nanoTime();
+                return schedule;
+            }
+            // загрузка в другом потоке завершилась ошибкой или расписание выгружено
+            schedule.lock.unlock();
+        }
+    }
+
+    /**
+     * Расписания нескольких вещей с захваченными блокировками, упорядоченные по id. Незагруженные публикуются
+     * и читаются из базы одним запросом, затем блокировки берутся в порядке id вещи.
+     */
+    private SortedMap<Long, ItemSchedule> lockAll(SortedSet<Long> itemIds) {
+        while (true) {
+            Map<Long, ItemSchedule> created = new HashMap<>();
+            for (Long itemId : itemIds) {
+                if (!schedules.containsKey(itemId)) {
+                    ItemSchedule schedule = publish(itemId);
+                    if (schedule != null) {
+                        created.put(itemId, schedule);
+                    }
+                }
+            }
+            if (!created.isEmpty()) {
+                load(created, () -> bookingRepository.findIntervalsByItemIds(created.keySet(), ACTIVE,
+                        LocalDateTime.now()), ItemBookingInterval::getItemId);
+                created.values().forEach(schedule -> schedule.lock.unlock());
+            }
+
+            SortedMap<Long, ItemSchedule> result = new TreeMap<>();
+            boolean loaded = true;
+            for (Long itemId : itemIds) {
+                ItemSchedule schedule = schedules.get(itemId);
+                if (schedule == null) {
+                    loaded = false;
+                    break;
+                }
+                schedule.lock.lock();
+                result.put(itemId, schedule);
+                if (!schedule.loaded) {
+                    loaded = false;
+                    break;
+                }
+            }
+            if (loaded) {
+                long now = System.nanoTime();
+                result.values().forEach(schedule -> schedule.lastAccess = now);
+                return result;
+            }
+            result.values().forEach(schedule -> schedule.lock.unlock());
+        }
+    }
+
+    /**
+     * Публикует пустое заблокированное расписание; null, если расписание вещи уже опубликовано другим потоком.
+     */
+    private ItemSchedule publish(Long itemId) {
+        ItemSchedule schedule = new ItemSchedule();
+        schedule.lock.lock();
+        if (schedules.putIfAbsent(itemId, schedule) != null) {
+            schedule.lock.unlock();
+            return null;
+        }
+        if (schedules.size() > properties.getMaxItems()) {
+            trim();
+        }
+        return schedule;
+    }
+
+    /**
+     * Выгружает загруженные расписания, к которым дольше всех не обращались, пока их не станет
+     * {@value #TRIM_TO} от {@code maxItems}. Параллельный вызов ничего не делает.
+     */
+    private void trim() {
+        int limit = (int) (properties.getMaxItems() * TRIM_TO);
+        if (schedules.size() <= properties.getMaxItems() || !trimming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // время обращения запоминается до сортировки: параллельные обращения не должны менять порядок во время неё
+            record Candidate(Long itemId, ItemSchedule schedule, long lastAccess) {
+            }
+            List<Candidate> candidates = new ArrayList<>(schedules.size());
+            schedules.forEach((itemId, schedule) -> candidates.add(new Candidate(itemId, schedule, schedule.lastAccess)));
+            candidates.sort(Comparator.comparingLong(Candidate::lastAccess));
+            Iterator<Candidate> oldest = candidates.iterator();
+            while (schedules.size() > limit && oldest.hasNext()) {
+                Candidate candidate = oldest.next();
+                evict(candidate.itemId(), candidate.schedule());
+            }
+        } finally {
+            trimming.set(false);
+        }
+    }
+
+    /**
+     * Выгружает загруженное расписание, если оно свободно. Занятое расписание пропускается: его держит запрос,
+     * который, возможно, сохраняет бронирование, или загрузка.
+     */
+    private boolean evict(Long itemId, ItemSchedule schedule) {
+        if (schedule.lock.isHeldByCurrentThread() || !schedule.lock.tryLock()) {
+            return false;
+        }
+        try {
+            return schedule.loaded && unload(itemId, schedule);
+        } finally {
+            schedule.lock.unlock();
+        }
+    }
+
+    /**
+     * Убирает расписание из карты; вызывается под его блокировкой. Потоки, уже получившие ссылку на него,
+     * увидят {@code loaded == false} и загрузят расписание заново.
+     */
+    private boolean unload(Long itemId, ItemSchedule schedule) {
+        schedule.loaded = false;
+        return schedules.remove(itemId, schedule);
+    }
+
+    private boolean overlapsInDatabase(Booking booking) {
+        return bookingRepository.existsByItemIdAndStatusInAndStartDateBeforeAndEndDateAfter(
+                booking.getItem().getId(), ACTIVE, booking.getEndDate(), booking.getStartDate());
+    }
+
+    /**
+     * Заполняет опубликованные расписания интервалами из базы, блокировки остаются захваченными.
+     * При ошибке расписания убираются из карты и освобождаются, ожидающие потоки загрузят их заново.
+     */
+    private <T extends BookingInterval> void load(Map<Long, ItemSchedule> created, Supplier<List<T>> query,
+                                                  Function<T, Long> itemIdOf) {
+        try {
+            for (T interval : query.get()) {
+                if (interval.getStartDate() != null && interval.getEndDate() != null) {
+                    created.get(itemIdOf.apply(interval))
+                            .add(interval.getBookingId(), interval.getStartDate(), interval.getEndDate());
+                }
+            }
+        } catch (RuntimeException e) {
+            created.forEach((itemId, schedule) -> {
+                schedules.remove(itemId, schedule);
+                schedule.lock.unlock();
+            });
+            throw e;
+        }
+        long now = System.nanoTime();
+        created.values().forEach(schedule -> {
+            schedule.loadedAt = now;
+            schedule.lastAccess = now;
+            schedule.loaded = true;
+        });
+    }
+
+    private void removeOnRollback(ItemSchedule schedule, Booking booking) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    schedule.lock.lock();
+                    try {
+                        schedule.remove(booking.getBookingId(), booking.getStartDate(), booking.getEndDate());
+                    } finally {
+                        schedule.lock.unlock();
+                    }
+                }
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static final class ItemSchedule {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final BookingIntervalTree intervals = new BookingIntervalTree();
+        private final BookingDayCalendar calendar = new BookingDayCalendar();
+        // пишется и читается под lock
+        private boolean loaded;
+        // System.nanoTime() загрузки и последнего обращения; читаются без блокировки в refresh() и trim()
+        private volatile long loadedAt;
+        private volatile long lastAccess;
+
+        /**
+         * Сначала календарь, потом дерево: если запись прервётся исключением, в дереве не останется интервала,
+         * а дни календаря пересчитает {@link #remove}, зарегистрированный вызывающим кодом до записи.
+         */
+        private void add(long bookingId, LocalDateTime start, LocalDateTime end) {
+            calendar.setBusy(firstDay(start), lastDay(end));
+            intervals.add(bookingId, start, end);
+        }
+
+        private void remove(long bookingId, LocalDateTime start, LocalDateTime end) {
+            intervals.remove(bookingId);
+            // день остаётся занятым, если его пересекает другое бронирование
+            calendar.update(firstDay(start), lastDay(end), day -> {
+                LocalDateTime dayStart = LocalDate.ofEpochDay(day).atStartOfDay();
+                return intervals.overlaps(dayStart, dayStart.plusDays(1));
+            });
+        }
+
+        private static long firstDay(LocalDateTime start) {
+            return start.toLocalDate().toEpochDay();
+        }
+
+        private static long lastDay(LocalDateTime end) {
+            return end.minusNanos(1).toLocalDate().toEpochDay();
+        }
+    }
+}
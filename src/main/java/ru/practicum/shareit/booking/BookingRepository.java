@@ -1,63 +1,123 @@
 package ru.practicum.shareit.booking;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import org.springframework.data.domain.Pageable;
 
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.ItemBookingDate;
+import ru.practicum.shareit.booking.dto.ItemBookingInterval;
+import ru.practicum.shareit.booking.dto.OwnerBookingCounts;
+
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
-    @Query("SELECT b FROM Booking b " +
+    /**
+     * Сколько строк драйвер забирает из курсора за один раз при потоковой выгрузке.
+     */
+    int STREAM_FETCH_SIZE = 500;
+
+    /**
+     * Проекция строки выборки сразу в {@link BookingDto}: читаются только нужные ему колонки бронирования,
+     * вещи и арендатора, без загрузки сущностей и их eager-связей.
+     */
+    String BOOKING_DTO = "new ru.practicum.shareit.booking.dto.BookingDto("
+            + "b.bookingId, b.startDate, b.endDate, b.status, u.id, u.name, i.id, i.name) ";
+
+    @Query("SELECT " + BOOKING_DTO + "FROM Booking b " +
             "JOIN b.booker u " +
+            "JOIN b.item i " +
             "WHERE u.id = :userId " +
             "AND b.status = 'APPROVED' " +
             "AND b.startDate < CURRENT_TIMESTAMP " +
             "AND b.endDate >= CURRENT_TIMESTAMP " +
-            "ORDER BY b.startDate DESC")
-    List<Booking> findAllByUserIdAndStateCurrent(@Param("userId") Long userId);
+            "AND (b.startDate < :cursorStart " +
+            "OR (b.startDate = :cursorStart AND b.bookingId < :cursorId)) " +
+            "ORDER BY b.startDate DESC, b.bookingId DESC")
+    List<BookingDto> findAllByUserIdAndStateCurrent(@Param("userId") Long userId,
+                                                    @Param("cursorStart") LocalDateTime cursorStart,
+                                                    @Param("cursorId") Long cursorId,
+                                                    Pageable pageable);
 
-    @Query("SELECT b FROM Booking b " +
+    @Query("SELECT " + BOOKING_DTO + "FROM Booking b " +
             "JOIN b.booker u " +
+            "JOIN b.item i " +
             "WHERE u.id = :userId " +
             "AND b.status = 'APPROVED' " +
             "AND b.endDate <= CURRENT_TIMESTAMP " +
-            "ORDER BY b.startDate DESC")
-    List<Booking> findAllByUserIdAndStatePast(@Param("userId") Long userId);
+            "AND (b.startDate < :cursorStart " +
+            "OR (b.startDate = :cursorStart AND b.bookingId < :cursorId)) " +
+            "ORDER BY b.startDate DESC, b.bookingId DESC")
+    List<BookingDto> findAllByUserIdAndStatePast(@Param("userId") Long userId,
+                                                 @Param("cursorStart") LocalDateTime cursorStart,
+                                                 @Param("cursorId") Long cursorId,
+                                                 Pageable pageable);
 
-    @Query("SELECT b FROM Booking b " +
+    @Query("SELECT " + BOOKING_DTO + "FROM Booking b " +
             "JOIN b.booker u " +
+            "JOIN b.item i " +
             "WHERE u.id = :userId " +
             "AND b.status = 'APPROVED' " +
             "AND b.startDate >= CURRENT_TIMESTAMP " +
-            "ORDER BY b.startDate DESC")
-    List<Booking> findAllByUserIdAndStateFuture(@Param("userId") Long userId);
+            "AND (b.startDate < :cursorStart " +
+            "OR (b.startDate = :cursorStart AND b.bookingId < :cursorId)) " +
+            "ORDER BY b.startDate DESC, b.bookingId DESC")
+    List<BookingDto> findAllByUserIdAndStateFuture(@Param("userId") Long userId,
+                                                   @Param("cursorStart") LocalDateTime cursorStart,
+                                                   @Param("cursorId") Long cursorId,
+                                                   Pageable pageable);
 
-    @Query("SELECT b FROM Booking b " +
+    @Query("SELECT " + BOOKING_DTO + "FROM Booking b " +
             "JOIN b.booker u " +
+            "JOIN b.item i " +
             "WHERE u.id = :userId " +
             "AND b.status = 'WAITING' " +
-            "ORDER BY b.startDate DESC")
-    List<Booking> findAllByUserIdAndStateWaiting(@Param("userId") Long userId);
+            "AND (b.startDate < :cursorStart " +
+            "OR (b.startDate = :cursorStart AND b.bookingId < :cursorId)) " +
+            "ORDER BY b.startDate DESC, b.bookingId DESC")
+    List<BookingDto> findAllByUserIdAndStateWaiting(@Param("userId") Long userId,
+                                                    @Param("cursorStart") LocalDateTime cursorStart,
+                                                    @Param("cursorId") Long cursorId,
+                                                    Pageable pageable);
 
-    @Query("SELECT b FROM Booking b " +
+    @Query("SELECT " + BOOKING_DTO + "FROM Booking b " +
             "JOIN b.booker u " +
+            "JOIN b.item i " +
             "WHERE u.id = :userId " +
             "AND b.status = 'REJECTED' " +
-            "ORDER BY b.startDate DESC")
-    List<Booking> findAllByUserIdAndStateRejected(@Param("userId") Long userId);
+            "AND (b.startDate < :cursorStart " +
+            "OR (b.startDate = :cursorStart AND b.bookingId < :cursorId)) " +
+            "ORDER BY b.startDate DESC, b.bookingId DESC")
+    List<BookingDto> findAllByUserIdAndStateRejected(@Param("userId") Long userId,
+                                                     @Param("cursorStart") LocalDateTime cursorStart,
+                                                     @Param("cursorId") Long cursorId,
+                                                     Pageable pageable);
 
-    @Query("SELECT b FROM Booking b " +
+    @Query("SELECT " + BOOKING_DTO + "FROM Booking b " +
             "JOIN b.booker u " +
+            "JOIN b.item i " +
             "WHERE u.id = :userId " +
-            "ORDER BY b.startDate DESC")
-    List<Booking> findAllByUserId(@Param("userId") Long userId);
+            "AND (b.startDate < :cursorStart " +
+            "OR (b.startDate = :cursorStart AND b.bookingId < :cursorId)) " +
+            "ORDER BY b.startDate DESC, b.bookingId DESC")
+    List<BookingDto> findAllByUserId(@Param("userId") Long userId,
+                                     @Param("cursorStart") LocalDateTime cursorStart,
+                                     @Param("cursorId") Long cursorId,
+                                     Pageable pageable);
 
 
     @Query("SELECT b FROM Booking b " +
@@ -68,50 +128,86 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     List<Booking> findCompletedByUserAndItem(@Param("userId") Long userId,
                                              @Param("itemId") Long itemId);
 
-    @Query("SELECT b FROM Booking b " +
+    @Query("SELECT " + BOOKING_DTO + "FROM Booking b " +
             "JOIN b.item i " +
+            "JOIN b.booker u " +
             "WHERE i.owner.id= :ownerId " +
             "AND b.status = 'APPROVED' " +
             "AND b.startDate < CURRENT_TIMESTAMP " +
             "AND b.endDate >= CURRENT_TIMESTAMP " +
-            "ORDER BY b.startDate DESC")
-    List<Booking> findAllByOwnerIdAndStateCurrent(@Param("ownerId") Long ownerId);
+            "AND (b.startDate < :cursorStart " +
+            "OR (b.startDate = :cursorStart AND b.bookingId < :cursorId)) " +
+            "ORDER BY b.startDate DESC, b.bookingId DESC")
+    List<BookingDto> findAllByOwnerIdAndStateCurrent(@Param("ownerId") Long ownerId,
+                                                     @Param("cursorStart") LocalDateTime cursorStart,
+                                                     @Param("cursorId") Long cursorId,
+                                                     Pageable pageable);
 
-    @Query("SELECT b FROM Booking b " +
+    @Query("SELECT " + BOOKING_DTO + "FROM Booking b " +
             "JOIN b.item i " +
+            "JOIN b.booker u " +
             "WHERE i.owner.id = :ownerId " +
             "AND b.status = 'APPROVED' " +
             "AND b.endDate <= CURRENT_TIMESTAMP " +
-            "ORDER BY b.startDate DESC")
-    List<Booking> findAllByOwnerIdAndStatePast(@Param("ownerId") Long ownerId);
+            "AND (b.startDate < :cursorStart " +
+            "OR (b.startDate = :cursorStart AND b.bookingId < :cursorId)) " +
+            "ORDER BY b.startDate DESC, b.bookingId DESC")
+    List<BookingDto> findAllByOwnerIdAndStatePast(@Param("ownerId") Long ownerId,
+                                                  @Param("cursorStart") LocalDateTime cursorStart,
+                                                  @Param("cursorId") Long cursorId,
+                                                  Pageable pageable);
 
-    @Query("SELECT b FROM Booking b " +
+    @Query("SELECT " + BOOKING_DTO + "FROM Booking b " +
             "JOIN b.item i " +
+            "JOIN b.booker u " +
             "WHERE i.owner.id = :ownerId " +
             "AND b.status = 'APPROVED' " +
             "AND b.startDate >= CURRENT_TIMESTAMP " +
-            "ORDER BY b.startDate DESC")
-    List<Booking> findAllByOwnerIdAndStateFuture(@Param("ownerId") Long ownerId);
+            "AND (b.startDate < :cursorStart " +
+            "OR (b.startDate = :cursorStart AND b.bookingId < :cursorId)) " +
+            "ORDER BY b.startDate DESC, b.bookingId DESC")
+    List<BookingDto> findAllByOwnerIdAndStateFuture(@Param("ownerId") Long ownerId,
+                                                    @Param("cursorStart") LocalDateTime cursorStart,
+                                                    @Param("cursorId") Long cursorId,
+                                                    Pageable pageable);
 
-    @Query("SELECT b FROM Booking b " +
+    @Query("SELECT " + BOOKING_DTO + "FROM Booking b " +
             "JOIN b.item i " +
+            "JOIN b.booker u " +
             "WHERE i.owner.id = :ownerId " +
             "AND b.status = 'WAITING' " +
-            "ORDER BY b.startDate DESC")
-    List<Booking> findAllByOwnerIdAndStateWaiting(@Param("ownerId") Long ownerId);
+            "AND (b.startDate < :cursorStart " +
+            "OR (b.startDate = :cursorStart AND b.bookingId < :cursorId)) " +
+            "ORDER BY b.startDate DESC, b.bookingId DESC")
+    List<BookingDto> findAllByOwnerIdAndStateWaiting(@Param("ownerId") Long ownerId,
+                                                     @Param("cursorStart") LocalDateTime cursorStart,
+                                                     @Param("cursorId") Long cursorId,
+                                                     Pageable pageable);
 
-    @Query("SELECT b FROM Booking b " +
+    @Query("SELECT " + BOOKING_DTO + "FROM Booking b " +
             "JOIN b.item i " +
+            "JOIN b.booker u " +
             "WHERE i.owner.id= :ownerId " +
             "AND b.status = 'REJECTED' " +
-            "ORDER BY b.startDate DESC")
-    List<Booking> findAllByOwnerIdAndStateRejected(@Param("ownerId") Long ownerId);
+            "AND (b.startDate < :cursorStart " +
+            "OR (b.startDate = :cursorStart AND b.bookingId < :cursorId)) " +
+            "ORDER BY b.startDate DESC, b.bookingId DESC")
+    List<BookingDto> findAllByOwnerIdAndStateRejected(@Param("ownerId") Long ownerId,
+                                                      @Param("cursorStart") LocalDateTime cursorStart,
+                                                      @Param("cursorId") Long cursorId,
+                                                      Pageable pageable);
 
-    @Query("SELECT b FROM Booking b " +
+    @Query("SELECT " + BOOKING_DTO + "FROM Booking b " +
             "JOIN b.item i " +
+            "JOIN b.booker u " +
             "WHERE i.owner.id = :ownerId " +
-            "ORDER BY b.startDate DESC")
-    List<Booking> findAllByOwnerId(@Param("ownerId") Long ownerId);
+            "AND (b.startDate < :cursorStart " +
+            "OR (b.startDate = :cursorStart AND b.bookingId < :cursorId)) " +
+            "ORDER BY b.startDate DESC, b.bookingId DESC")
+    List<BookingDto> findAllByOwnerId(@Param("ownerId") Long ownerId,
+                                      @Param("cursorStart") LocalDateTime cursorStart,
+                                      @Param("cursorId") Long cursorId,
+                                      Pageable pageable);
 
 
     @Query("SELECT b.endDate FROM Booking b " +
@@ -129,4 +225,91 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
             "AND b.startDate >= CURRENT_TIMESTAMP " +
             "ORDER BY b.startDate ASC")
     List<LocalDateTime> findNextDateBookingByItemId(@Param("itemId") Long itemId, Pageable pageable);
-}
\ No newline at end of file
+
+    @Query("SELECT b.item.id AS itemId, MAX(b.endDate) AS date FROM Booking b " +
+            "WHERE b.item.id IN :itemIds " +
+            "AND b.endDate < CURRENT_TIMESTAMP " +
+            "AND b.status = 'APPROVED' " +
+            "GROUP BY b.item.id")
+    List<ItemBookingDate> findLastDateBookingByItemIds(@Param("itemIds") Collection<Long> itemIds);
+
+    @Query("SELECT b.item.id AS itemId, MIN(b.startDate) AS date FROM Booking b " +
+            "WHERE b.item.id IN :itemIds " +
+            "AND b.status = 'APPROVED' " +
+            "AND b.startDate >= CURRENT_TIMESTAMP " +
+            "GROUP BY b.item.id")
+    List<ItemBookingDate> findNextDateBookingByItemIds(@Param("itemIds") Collection<Long> itemIds);
+
+    List<BookingInterval> findAllByItemIdAndStatusInAndEndDateAfter(Long itemId, Collection<Status> statuses,
+                                                                     LocalDateTime now);
+
+    boolean existsByItemIdAndStatusInAndStartDateBeforeAndEndDateAfter(Long itemId, Collection<Status> statuses,
+                                                                       LocalDateTime end, LocalDateTime start);
+
+    @Query("SELECT b.item.id AS itemId, b.bookingId AS bookingId, b.startDate AS startDate, b.endDate AS endDate " +
+            "FROM Booking b " +
+            "WHERE b.item.id IN :itemIds AND b.status IN :statuses AND b.endDate > :now")
+    List<ItemBookingInterval> findIntervalsByItemIds(@Param("itemIds") Collection<Long> itemIds,
+                                                     @Param("statuses") Collection<Status> statuses,
+                                                     @Param("now") LocalDateTime now);
+
+    /**
+     * Вся история бронирований пользователя для потоковой выгрузки. Строки читаются из курсора
+     * порциями по {@link #STREAM_FETCH_SIZE}; вызывать внутри транзакции.
+     */
+    @Query("SELECT " + BOOKING_DTO + "FROM Booking b " +
+            "JOIN b.booker u " +
+            "JOIN b.item i " +
+            "WHERE u.id = :userId " +
+            "AND b.status IN :statuses " +
+            "ORDER BY b.startDate DESC, b.bookingId DESC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    Stream<BookingDto> streamAllByUserId(@Param("userId") Long userId,
+                                         @Param("statuses") Collection<Status> statuses);
+
+    @Query("SELECT " + BOOKING_DTO + "FROM Booking b " +
+            "JOIN b.item i " +
+            "JOIN b.booker u " +
+            "WHERE i.owner.id = :ownerId " +
+            "AND b.status IN :statuses " +
+            "ORDER BY b.startDate DESC, b.bookingId DESC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    Stream<BookingDto> streamAllByOwnerId(@Param("ownerId") Long ownerId,
+                                          @Param("statuses") Collection<Status> statuses);
+
+    /**
+     * Счётчики для сводки владельца. Границы по времени те же, что в {@code findAllByOwnerIdAndState*},
+     * но не пересекаются: бронирование, закончившееся ровно в {@code now}, считается прошедшим.
+     */
+    @Query("SELECT i.owner.id AS ownerId, COUNT(b) AS total, " +
+            "SUM(CASE WHEN b.status = 'APPROVED' AND b.startDate < :now AND b.endDate > :now " +
+            "THEN 1 ELSE 0 END) AS current, " +
+            "SUM(CASE WHEN b.status = 'APPROVED' AND b.endDate <= :now THEN 1 ELSE 0 END) AS past, " +
+            "SUM(CASE WHEN b.status = 'APPROVED' AND b.startDate >= :now AND b.endDate > :now " +
+            "THEN 1 ELSE 0 END) AS future, " +
+            "SUM(CASE WHEN b.status = 'WAITING' THEN 1 ELSE 0 END) AS waiting, " +
+            "SUM(CASE WHEN b.status = 'REJECTED' THEN 1 ELSE 0 END) AS rejected " +
+            "FROM Booking b " +
+            "JOIN b.item i " +
+            "WHERE i.owner.id IN :ownerIds " +
+            "GROUP BY i.owner.id")
+    List<OwnerBookingCounts> countByOwnerIds(@Param("ownerIds") Collection<Long> ownerIds,
+                                             @Param("now") LocalDateTime now);
+
+    @Query("SELECT b.bookingId AS bookingId, b.startDate AS startDate, b.endDate AS endDate " +
+            "FROM Booking b " +
+            "JOIN b.item i " +
+            "WHERE i.owner.id = :ownerId " +
+            "AND b.status = 'APPROVED' " +
+            "AND b.endDate > :now")
+    List<BookingInterval> findApprovedIntervalsByOwnerId(@Param("ownerId") Long ownerId,
+                                                         @Param("now") LocalDateTime now);
+
+    /**
+     * Переводит ожидающее бронирование в {@code status}. Условие на статус проверяется базой, поэтому из двух
+     * параллельных решений или решения и отмены {@link BookingExpiryJob} применяется одно: второе получит 0.
+     */
+    @Modifying
+    @Query("UPDATE Booking b SET b.status = :status WHERE b.bookingId = :bookingId AND b.status = 'WAITING'")
+    int updateStatusIfWaiting(@Param("bookingId") Long bookingId, @Param("status") Status status);
+}
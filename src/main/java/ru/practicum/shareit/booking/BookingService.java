@@ -1,25 +1,58 @@
 package ru.practicum.shareit.booking;
 
+import ru.practicum.shareit.batch.BatchElementResult;
+import ru.practicum.shareit.booking.dto.AvailabilitySlotDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingRequest;
 
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface BookingService {
     BookingDto create(Long userId, BookingRequest request);
 
+    List<BatchElementResult<BookingDto>> createAll(Long userId, List<BookingRequest> requests);
+
     BookingDto confirmationBooking(Long bookingId, Boolean approved);
 
     BookingDto getBookingInfo(Long bookingId);
 
-    List<BookingDto> getAllBookingsByUserAndStates(Long userId, States state);
+    /**
+     * Бронирования пользователя от новых к старым, начиная с позиции {@code cursor} или со смещения {@code from}.
+     * Без {@code size} возвращается весь остаток списка.
+     */
+    List<BookingDto> getAllBookingsByUserAndStates(Long userId, States state, String cursor, int from, Integer size);
+
+    List<BookingDto> getAllBookingsByOwnerItemsAndStates(Long ownerId, States state, String cursor, int from,
+                                                         Integer size);
+
+    /**
+     * Число бронирований вещей владельца по каждому состоянию без выборки самих бронирований.
+     */
+    Map<States, Long> getOwnerSummary(Long ownerId);
+
+    /**
+     * Передаёт все бронирования пользователя в заданном состоянии в consumer по мере чтения из базы.
+     *
+     * @return число переданных бронирований
+     */
+    long streamAllBookingsByUserAndStates(Long userId, States state, Consumer<BookingDto> consumer);
 
-    List<BookingDto> getAllBookingsByOwnerItemsAndStates(Long ownerId, States state);
+    long streamAllBookingsByOwnerItemsAndStates(Long ownerId, States state, Consumer<BookingDto> consumer);
 
     Optional<LocalDateTime> getLastDateBooking(Long itemId);
 
     Optional<LocalDateTime> getNextDateBooking(Long itemId);
+
+    Map<Long, LocalDateTime> getLastDateBookings(Collection<Long> itemIds);
+
+    Map<Long, LocalDateTime> getNextDateBookings(Collection<Long> itemIds);
+
+    List<AvailabilitySlotDto> getAvailability(Long itemId, LocalDate from, LocalDate to);
 }
@@ -1,92 +1,221 @@
 package ru.practicum.shareit.booking;
 
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.batch.BatchElementResult;
+import ru.practicum.shareit.booking.dto.AvailabilitySlotDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingMapper;
 import ru.practicum.shareit.booking.dto.BookingRequest;
+import ru.practicum.shareit.booking.dto.ItemBookingDate;
+import ru.practicum.shareit.exception.ConflictException;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.item.ItemJpaRepository;
+import ru.practicum.shareit.outbox.BookingEventType;
+import ru.practicum.shareit.outbox.BookingOutbox;
 import ru.practicum.shareit.user.User;
-import ru.practicum.shareit.user.UserJpaRepository;
+import ru.practicum.shareit.validation.RequestEntityCache;
+import ru.practicum.shareit.validation.Validation;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
-
+@Transactional(readOnly = true)
 public class BookingServiceImpl implements BookingService {
 
     private final BookingRepository bookingRepository;
-    private final UserJpaRepository userRepository;
+    private final RequestEntityCache entityCache;
+    private final BookingIntervalIndex bookingIntervalIndex;
     private final ItemJpaRepository itemRepository;
+    private final Validation validation;
+    private final BookingOutbox outbox;
+    private final OwnerBookingCounters ownerCounters;
+    private final EntityManager entityManager;
 
     @Override
+    @Transactional
     public BookingDto create(Long userId, BookingRequest request) {
 
-        User user = userRepository.findById(userId)
+        User user = entityCache.findUser(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден с ID: " + userId));
-        Item item = itemRepository.findById(request.getItemId()).orElseThrow(() ->
+        Item item = entityCache.findItem(request.getItemId()).orElseThrow(() ->
                 new NotFoundException("Вещи с id: " + request.getItemId() + " не существует"));
 
         Booking newBooking = BookingMapper.mapToBooking(request, user, item);
-        return BookingMapper.mapToBookingDto(bookingRepository.save(newBooking));
+        Booking saved = bookingIntervalIndex.reserve(newBooking, () -> bookingRepository.save(newBooking));
+        outbox.record(BookingEventType.CREATED, saved);
+        ownerCounters.onCreated(saved);
+        return BookingMapper.mapToBookingDto(saved);
 
     }
 
+    /**
+     * Создаёт бронирования пакетом. Вещи всех элементов загружаются одним запросом; элементы с ошибками
+     * валидации, недоступной вещью или пересечением дат получают ошибку, остальные сохраняются одной пакетной вставкой.
+     */
     @Override
+    @Transactional
+    public List<BatchElementResult<BookingDto>> createAll(Long userId, List<BookingRequest> requests) {
+        User user = entityCache.findUser(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден с ID: " + userId));
+        Map<Long, Item> items = itemRepository.findAllWithOwnerByIdIn(requests.stream()
+                        .filter(Objects::nonNull)
+                        .map(BookingRequest::getItemId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        List<BatchElementResult<BookingDto>> results = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        List<Integer> indexes = new ArrayList<>();
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            BookingRequest request = requests.get(i);
+            String error = validation.batchElementViolations(request);
+            if (error == null) {
+                Item item = items.get(request.getItemId());
+                if (item == null) {
+                    error = "Вещь с id=" + request.getItemId() + " не найдена";
+                } else if (!item.getAvailable()) {
+                    error = "Вещь с id=" + request.getItemId() + " не доступна для аренды";
+                }
+            }
+            if (error != null) {
+                results.set(i, BatchElementResult.failure(i, error));
+            } else {
+                indexes.add(i);
+                bookings.add(BookingMapper.mapToBooking(request, user, items.get(request.getItemId())));
+            }
+        }
+
+        List<Booking> saved = bookingIntervalIndex.reserveAll(bookings, bookingRepository::saveAll);
+        List<Booking> created = saved.stream().filter(Objects::nonNull).toList();
+        outbox.recordAll(BookingEventType.CREATED, created);
+        created.forEach(ownerCounters::onCreated);
+        for (int i = 0; i < saved.size(); i++) {
+            int index = indexes.get(i);
+            results.set(index, saved.get(i) == null
+                    ? BatchElementResult.failure(index, BookingIntervalIndex.conflictMessage(bookings.get(i)))
+                    : BatchElementResult.success(index, BookingMapper.mapToBookingDto(saved.get(i))));
+        }
+        return results;
+    }
+
+    @Override
+    @Transactional
     public BookingDto confirmationBooking(Long bookingId, Boolean approved) {
-        Booking booking = bookingRepository.findById(bookingId).orElseThrow(() ->
+        Booking booking = entityCache.findBooking(bookingId).orElseThrow(() ->
                 new NotFoundException("Бронирование с id=" + bookingId + " не найдено"));
+        Status previous = booking.getStatus();
+        // решение принимается один раз: отменённое, отклонённое или подтверждённое бронирование не меняется
+        if (previous != Status.WAITING) {
+            throw new ValidationException("Бронирование с id=" + bookingId + " уже в статусе " + previous
+                    + ", подтвердить или отклонить можно только ожидающее");
+        }
 
-        if (approved) {
-            booking.setStatus(Status.APPROVED);
-        } else {
-            booking.setStatus(Status.REJECTED);
+        Status status = approved ? Status.APPROVED : Status.REJECTED;
+        // сущность могла быть загружена до отмены или другого решения, зафиксированных после проверки выше
+        if (bookingRepository.updateStatusIfWaiting(bookingId, status) == 0) {
+            throw new ConflictException("Статус бронирования с id=" + bookingId + " изменился, повторите запрос");
         }
-        return BookingMapper.mapToBookingDto(bookingRepository.save(booking));
+        // строка заблокирована до конца транзакции, сущность просто получает записанный статус;
+        // без проверки изменений при flush статус повторно не записывается вторым UPDATE
+        entityManager.unwrap(Session.class).setReadOnly(booking, true);
+        booking.setStatus(status);
+        bookingIntervalIndex.update(booking);
+        // даты последнего и следующего бронирования входят в ETag вещи
+        itemRepository.incrementVersion(booking.getItem().getId());
+        outbox.record(approved ? BookingEventType.APPROVED : BookingEventType.REJECTED, booking);
+        ownerCounters.onStatusChanged(booking, previous);
+        return BookingMapper.mapToBookingDto(booking);
 
     }
 
     @Override
     public BookingDto getBookingInfo(Long bookingId) {
 
-        Booking booking = bookingRepository.findById(bookingId).orElseThrow(() ->
+        Booking booking = entityCache.findBooking(bookingId).orElseThrow(() ->
                 new NotFoundException("Бронирование с id=" + bookingId + " не найдено"));
         return BookingMapper.mapToBookingDto(booking);
     }
 
     @Override
-    public List<BookingDto> getAllBookingsByUserAndStates(Long userId, States state) {
-        List<Booking> result = switch (state) {
-            case CURRENT -> bookingRepository.findAllByUserIdAndStateCurrent(userId);
-            case PAST -> bookingRepository.findAllByUserIdAndStatePast(userId);
-            case FUTURE -> bookingRepository.findAllByUserIdAndStateFuture(userId);
-            case WAITING -> bookingRepository.findAllByUserIdAndStateWaiting(userId);
-            case REJECTED -> bookingRepository.findAllByUserIdAndStateRejected(userId);
-            case ALL -> bookingRepository.findAllByUserId(userId);
+    public List<BookingDto> getAllBookingsByUserAndStates(Long userId, States state, String cursor, int from, Integer size) {
+        BookingCursor position = cursor == null ? BookingCursor.FIRST : BookingCursor.decode(cursor);
+        LocalDateTime start = position.getStartDate();
+        Long id = position.getBookingId();
+        Pageable page = page(cursor, from, size);
+
+        return switch (state) {
+            case CURRENT -> bookingRepository.findAllByUserIdAndStateCurrent(userId, start, id, page);
+            case PAST -> bookingRepository.findAllByUserIdAndStatePast(userId, start, id, page);
+            case FUTURE -> bookingRepository.findAllByUserIdAndStateFuture(userId, start, id, page);
+            case WAITING -> bookingRepository.findAllByUserIdAndStateWaiting(userId, start, id, page);
+            case REJECTED -> bookingRepository.findAllByUserIdAndStateRejected(userId, start, id, page);
+            case ALL -> bookingRepository.findAllByUserId(userId, start, id, page);
         };
+    }
 
-        return BookingMapper.mapToBookingDtoToList(result);
+    /**
+     * Не read-only: при первом запросе счётчики владельца загружаются из базы и дальше не перечитываются,
+     * поэтому читать их нужно из основной базы, а не из отстающей реплики.
+     */
+    @Override
+    @Transactional
+    public Map<States, Long> getOwnerSummary(Long ownerId) {
+        return ownerCounters.summary(ownerId);
     }
 
     @Override
-    public List<BookingDto> getAllBookingsByOwnerItemsAndStates(Long ownerId, States state) {
-
-        List<Booking> result = switch (state) {
-            case CURRENT -> bookingRepository.findAllByOwnerIdAndStateCurrent(ownerId);
-            case PAST -> bookingRepository.findAllByOwnerIdAndStatePast(ownerId);
-            case FUTURE -> bookingRepository.findAllByOwnerIdAndStateFuture(ownerId);
-            case WAITING -> bookingRepository.findAllByOwnerIdAndStateWaiting(ownerId);
-            case REJECTED -> bookingRepository.findAllByOwnerIdAndStateRejected(ownerId);
-            case ALL -> bookingRepository.findAllByOwnerId(ownerId);
+    public List<BookingDto> getAllBookingsByOwnerItemsAndStates(Long ownerId, States state, String cursor,
+                                                                int from, Integer size) {
+        BookingCursor position = cursor == null ? BookingCursor.FIRST : BookingCursor.decode(cursor);
+        LocalDateTime start = position.getStartDate();
+        Long id = position.getBookingId();
+        Pageable page = page(cursor, from, size);
+
+        return switch (state) {
+            case CURRENT -> bookingRepository.findAllByOwnerIdAndStateCurrent(ownerId, start, id, page);
+            case PAST -> bookingRepository.findAllByOwnerIdAndStatePast(ownerId, start, id, page);
+            case FUTURE -> bookingRepository.findAllByOwnerIdAndStateFuture(ownerId, start, id, page);
+            case WAITING -> bookingRepository.findAllByOwnerIdAndStateWaiting(ownerId, start, id, page);
+            case REJECTED -> bookingRepository.findAllByOwnerIdAndStateRejected(ownerId, start, id, page);
+            case ALL -> bookingRepository.findAllByOwnerId(ownerId, start, id, page);
         };
+    }
 
-        return BookingMapper.mapToBookingDtoToList(result);
+    @Override
+    public long streamAllBookingsByUserAndStates(Long userId, States state, Consumer<BookingDto> consumer) {
+        return stream(() -> bookingRepository.streamAllByUserId(userId, statusesOf(state)), state, consumer);
+    }
+
+    @Override
+    public long streamAllBookingsByOwnerItemsAndStates(Long ownerId, States state, Consumer<BookingDto> consumer) {
+        return stream(() -> bookingRepository.streamAllByOwnerId(ownerId, statusesOf(state)), state, consumer);
     }
 
     @Override
@@ -104,4 +233,79 @@ public class BookingServiceImpl implements BookingService {
                 .stream()
                 .findFirst();
     }
+
+    @Override
+    public Map<Long, LocalDateTime> getLastDateBookings(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return Map.of();
+        }
+        return bookingRepository.findLastDateBookingByItemIds(itemIds).stream()
+                .collect(Collectors.toMap(ItemBookingDate::getItemId, ItemBookingDate::getDate));
+    }
+
+    @Override
+    public Map<Long, LocalDateTime> getNextDateBookings(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return Map.of();
+        }
+        return bookingRepository.findNextDateBookingByItemIds(itemIds).stream()
+                .collect(Collectors.toMap(ItemBookingDate::getItemId, ItemBookingDate::getDate));
+    }
+
+    /**
+     * Не read-only по той же причине, что и {@link #getOwnerSummary}: расписание вещи загружается один раз
+     * и служит проверке пересечений при создании бронирований.
+     */
+    @Override
+    @Transactional
+    public List<AvailabilitySlotDto> getAvailability(Long itemId, LocalDate from, LocalDate to) {
+        return bookingIntervalIndex.getAvailability(itemId, from, to);
+    }
+
+    /**
+     * Читает бронирования из курсора в read-only транзакции и отдаёт их по одному. Строки сразу
+     * проецируются в {@link BookingDto}, сущности в контексте персистентности не накапливаются.
+     */
+    private long stream(Supplier<Stream<BookingDto>> query, States state, Consumer<BookingDto> consumer) {
+        // поток результатов читается в read-only транзакции вызвавшего метода сервиса
+        Predicate<BookingDto> filter = filterOf(state, LocalDateTime.now());
+        long count = 0;
+        try (Stream<BookingDto> bookings = query.get()) {
+            for (BookingDto booking : (Iterable<BookingDto>) bookings::iterator) {
+                if (filter.test(booking)) {
+                    consumer.accept(booking);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static Set<Status> statusesOf(States state) {
+        return switch (state) {
+            case ALL -> EnumSet.allOf(Status.class);
+            case WAITING -> EnumSet.of(Status.WAITING);
+            case REJECTED -> EnumSet.of(Status.REJECTED);
+            case CURRENT, PAST, FUTURE -> EnumSet.of(Status.APPROVED);
+        };
+    }
+
+    // статус отбирается в запросе, а границы по времени те же, что в постраничных запросах
+    private static Predicate<BookingDto> filterOf(States state, LocalDateTime now) {
+        return switch (state) {
+            case CURRENT -> b -> b.getStart().isBefore(now) && !b.getEnd().isBefore(now);
+            case PAST -> b -> !b.getEnd().isAfter(now);
+            case FUTURE -> b -> !b.getStart().isBefore(now);
+            case ALL, WAITING, REJECTED -> b -> true;
+        };
+    }
+
+    private static Pageable page(String cursor, int from, Integer size) {
+        // при переходе по курсору смещение уже учтено в условии выборки
+        int offset = cursor == null ? from : 0;
+        if (size == null) {
+            return offset == 0 ? Pageable.unpaged() : new OffsetPageRequest(offset, Integer.MAX_VALUE);
+        }
+        return new OffsetPageRequest(offset, size);
+    }
 }
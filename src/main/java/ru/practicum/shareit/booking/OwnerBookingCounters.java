@@ -0,0 +1,358 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.OwnerBookingCounts;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Число бронирований вещей владельца по каждому {@link States} для GET /bookings/owner/summary.
+ * Счётчики владельца загружаются из базы при первом запросе сводки и дальше меняются при создании
+ * и подтверждении бронирований после фиксации транзакции. Переходы подтверждённых бронирований
+ * FUTURE → CURRENT → PAST стоят в очереди по времени и применяются {@link #sweep()} и перед выдачей сводки.
+ * {@link #reconcile()} сверяет счётчики с базой и сбрасывает разошедшиеся: их меняют изменения
+ * с других экземпляров приложения и гонки загрузки с параллельной записью.
+ * В памяти держится не больше {@code maxOwners} владельцев: при загрузке нового выгружается тот, кто дольше всех
+ * не запрашивал сводку, вместе с его переходами в очереди.
+ */
+@Slf4j
+@Component
+public class OwnerBookingCounters {
+
+    private static final int RECONCILE_CHUNK = 500;
+
+    private final BookingRepository bookingRepository;
+    private final OwnerSummaryProperties properties;
+    private final Counter drift;
+
+    // одна блокировка на владельцев, счётчики и очередь переходов: операции короткие и не обращаются к базе
+    private final ReentrantLock lock = new ReentrantLock();
+    // в порядке обращения: первым идёт тот, кто дольше всех не запрашивал сводку
+    private final Map<Long, Owner> owners = new LinkedHashMap<>(16, 0.75f, true);
+    private final PriorityQueue<Transition> transitions = new PriorityQueue<>();
+
+    public OwnerBookingCounters(BookingRepository bookingRepository, OwnerSummaryProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.bookingRepository = bookingRepository;
+        this.properties = properties;
+        this.drift = Counter.builder("booking.owner-summary.drift")
+                .description("Владельцы, чьи счётчики бронирований разошлись с базой")
+                .register(meterRegistry);
+    }
+
+    public Map<States, Long> summary(Long ownerId) {
+        Owner owner = loaded(ownerId);
+        if (owner == null) {
+            owner = load(ownerId);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        lock.lock();
+        try {
+            advance(now);
+            Map<States, Long> summary = new EnumMap<>(States.class);
+            for (States state : States.values()) {
+                summary.put(state, owner.counts[state.ordinal()]);
+            }
+            return summary;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onCreated(Booking booking) {
+        Long ownerId = booking.getItem().getOwner().getId();
+        afterCommit(() -> update(ownerId, owner -> {
+            owner.add(States.ALL, 1);
+            owner.add(stateOf(booking.getStatus()), 1);
+        }));
+    }
+
+    public void onStatusChanged(Booking booking, Status previous) {
+        Long ownerId = booking.getItem().getOwner().getId();
+        Long bookingId = booking.getBookingId();
+        Status status = booking.getStatus();
+        LocalDateTime start = booking.getStartDate();
+        LocalDateTime end = booking.getEndDate();
+        afterCommit(() -> update(ownerId, owner -> {
+            if (previous == Status.APPROVED) {
+                owner.unapprove(bookingId, start, end);
+            } else {
+                owner.add(stateOf(previous), -1);
+            }
+            if (status == Status.APPROVED) {
+                owner.approve(bookingId, start, end, LocalDateTime.now());
+            } else {
+                owner.add(stateOf(status), 1);
+            }
+        }));
+    }
+
+    /**
+     * Применяет наступившие переходы FUTURE → CURRENT → PAST.
+     */
+    @Scheduled(fixedDelayString = "${shareit.owner-summary.sweep-interval:PT10S}")
+    public void sweep() {
+        lock.lock();
+        try {
+            advance(LocalDateTime.now());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Сверяет загруженных владельцев с базой пачками по {@value #RECONCILE_CHUNK}. Разошедшиеся владельцы
+     * выгружаются и при следующем запросе сводки читаются из базы заново.
+     */
+    @Scheduled(fixedDelayString = "${shareit.owner-summary.reconcile-interval:PT1H}")
+    public void reconcile() {
+        // снимок без get: сверка не должна менять порядок выгрузки
+        List<Map.Entry<Long, Owner>> loaded;
+        lock.lock();
+        try {
+            loaded = new ArrayList<>(owners.size());
+            owners.forEach((ownerId, owner) -> loaded.add(Map.entry(ownerId, owner)));
+        } finally {
+            lock.unlock();
+        }
+        int drifted = 0;
+        for (int from = 0; from < loaded.size(); from += RECONCILE_CHUNK) {
+            List<Map.Entry<Long, Owner>> chunk = loaded.subList(from, Math.min(from + RECONCILE_CHUNK, loaded.size()));
+            LocalDateTime now = LocalDateTime.now();
+            Map<Long, OwnerBookingCounts> actual = bookingRepository.countByOwnerIds(
+                            chunk.stream().map(Map.Entry::getKey).toList(), now).stream()
+                    .collect(Collectors.toMap(OwnerBookingCounts::getOwnerId, Function.identity()));
+            lock.lock();
+            try {
+                advance(now);
+                for (Map.Entry<Long, Owner> entry : chunk) {
+                    Long ownerId = entry.getKey();
+                    if (!entry.getValue().matches(actual.get(ownerId)) && drop(ownerId, entry.getValue())) {
+                        log.warn("Счётчики бронирований владельца {} разошлись с базой и будут перечитаны", ownerId);
+                        drifted++;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        drift.increment(drifted);
+        log.debug("Сверено счётчиков владельцев: {}, разошлось: {}", loaded.size(), drifted);
+    }
+
+    private Owner loaded(Long ownerId) {
+        lock.lock();
+        try {
+            return owners.get(ownerId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Owner load(Long ownerId) {
+        LocalDateTime now = LocalDateTime.now();
+        OwnerBookingCounts counts = bookingRepository.countByOwnerIds(List.of(ownerId), now).stream()
+                .findFirst()
+                .orElse(null);
+        List<BookingInterval> approved = bookingRepository.findApprovedIntervalsByOwnerId(ownerId, now);
+
+        Owner owner = new Owner();
+        owner.set(counts);
+        lock.lock();
+        try {
+            Owner existing = owners.putIfAbsent(ownerId, owner);
+            if (existing != null) {
+                return existing;
+            }
+            for (BookingInterval interval : approved) {
+                owner.track(interval.getBookingId(), interval.getStartDate(), interval.getEndDate(), now);
+            }
+            while (owners.size() > properties.getMaxOwners()) {
+                Map.Entry<Long, Owner> eldest = owners.entrySet().iterator().next();
+                drop(eldest.getKey(), eldest.getValue());
+            }
+            return owner;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // владельцы, чьи счётчики ещё не загружены, не изменяются
+    private void update(Long ownerId, Consumer<Owner> change) {
+        lock.lock();
+        try {
+            Owner owner = owners.get(ownerId);
+            if (owner != null) {
+                advance(LocalDateTime.now());
+                change.accept(owner);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // выгружает владельца, если он ещё загружен, вместе с его переходами; вызывается под блокировкой
+    private boolean drop(Long ownerId, Owner owner) {
+        if (!owners.remove(ownerId, owner)) {
+            return false;
+        }
+        // вместе с устаревшими переходами, которые move() пропустил бы
+        transitions.removeIf(transition -> transition.owner == owner);
+        return true;
+    }
+
+    private void advance(LocalDateTime now) {
+        while (!transitions.isEmpty() && transitions.peek().at.isBefore(now)) {
+            Transition transition = transitions.poll();
+            transition.owner.move(transition, now);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static States stateOf(Status status) {
+        return switch (status) {
+            case WAITING -> States.WAITING;
+            case REJECTED -> States.REJECTED;
+            // отменённые входят только в ALL, подтверждённые раскладываются по времени
+            case APPROVED, CANCELED -> null;
+        };
+    }
+
+    private static States timeStateOf(LocalDateTime start, LocalDateTime end, LocalDateTime now) {
+        if (!end.isAfter(now)) {
+            return States.PAST;
+        }
+        return start.isBefore(now) ? States.CURRENT : States.FUTURE;
+    }
+
+    /**
+     * Счётчики одного владельца и ближайший переход каждого ещё не закончившегося подтверждённого бронирования
+     * его вещей. Меняется только под общей блокировкой.
+     */
+    private final class Owner {
+
+        private final long[] counts = new long[States.values().length];
+        private final Map<Long, Transition> pending = new HashMap<>();
+
+        void set(OwnerBookingCounts actual) {
+            if (actual == null) {
+                return;
+            }
+            counts[States.ALL.ordinal()] = actual.getTotal();
+            counts[States.CURRENT.ordinal()] = actual.getCurrent();
+            counts[States.PAST.ordinal()] = actual.getPast();
+            counts[States.FUTURE.ordinal()] = actual.getFuture();
+            counts[States.WAITING.ordinal()] = actual.getWaiting();
+            counts[States.REJECTED.ordinal()] = actual.getRejected();
+        }
+
+        boolean matches(OwnerBookingCounts actual) {
+            Owner expected = new Owner();
+            expected.set(actual);
+            return Arrays.equals(counts, expected.counts);
+        }
+
+        void add(States state, long delta) {
+            if (state != null) {
+                counts[state.ordinal()] += delta;
+            }
+        }
+
+        void approve(Long bookingId, LocalDateTime start, LocalDateTime end, LocalDateTime now) {
+            if (start == null || end == null) {
+                return;
+            }
+            add(timeStateOf(start, end, now), 1);
+            track(bookingId, start, end, now);
+        }
+
+        void unapprove(Long bookingId, LocalDateTime start, LocalDateTime end) {
+            Transition next = pending.remove(bookingId);
+            if (next != null) {
+                add(next.stateBefore(), -1);
+            } else if (start != null && end != null) {
+                // не закончившиеся подтверждённые бронирования отслеживаются все, значит, это закончилось
+                add(States.PAST, -1);
+            }
+        }
+
+        // ставит в очередь ближайшую границу бронирования, если оно ещё не закончилось
+        void track(Long bookingId, LocalDateTime start, LocalDateTime end, LocalDateTime now) {
+            States state = timeStateOf(start, end, now);
+            if (state == States.PAST) {
+                pending.remove(bookingId);
+                return;
+            }
+            Transition next = new Transition(state == States.FUTURE ? start : end, this, bookingId, start, end);
+            pending.put(bookingId, next);
+            transitions.add(next);
+        }
+
+        void move(Transition transition, LocalDateTime now) {
+            // бронирование отклонено или подтверждено заново после постановки перехода в очередь
+            if (pending.get(transition.bookingId) != transition) {
+                return;
+            }
+            add(transition.stateBefore(), -1);
+            add(timeStateOf(transition.start, transition.end, now), 1);
+            track(transition.bookingId, transition.start, transition.end, now);
+        }
+    }
+
+    private static final class Transition implements Comparable<Transition> {
+        private final LocalDateTime at;
+        private final Owner owner;
+        private final Long bookingId;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+
+        Transition(LocalDateTime at, Owner owner, Long bookingId, LocalDateTime start, LocalDateTime end) {
+            this.at = at;
+            this.owner = owner;
+            this.bookingId = bookingId;
+            this.start = start;
+            this.end = end;
+        }
+
+        // до начала бронирование в FUTURE, до окончания — в CURRENT
+        States stateBefore() {
+            return at.equals(start) ? States.FUTURE : States.CURRENT;
+        }
+
+        @Override
+        public int compareTo(Transition other) {
+            return at.compareTo(other.at);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки счётчиков {@link OwnerBookingCounters}: сколько владельцев держится в памяти.
+ * Давно не запрашивавшие сводку владельцы выгружаются первыми и при следующем запросе читаются из базы.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "shareit.owner-summary")
+public class OwnerSummaryProperties {
+
+    private int maxOwners = 10_000;
+}
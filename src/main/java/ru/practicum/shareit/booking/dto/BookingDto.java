@@ -1,6 +1,7 @@
 package ru.practicum.shareit.booking.dto;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import ru.practicum.shareit.booking.Status;
 
 import ru.practicum.shareit.item.dto.ItemSmallDto;
@@ -9,6 +10,7 @@ import ru.practicum.shareit.user.User;
 import java.time.LocalDateTime;
 
 @Data
+@NoArgsConstructor
 public class BookingDto {
 
     private Long id;
@@ -18,4 +20,23 @@ public class BookingDto {
     private boolean approved;
     private User booker;
     private ItemSmallDto item;
-}
\ No newline at end of file
+
+    /**
+     * Конструктор для JPQL-проекции списков бронирований, см. {@code BookingRepository.BOOKING_DTO}.
+     */
+    public BookingDto(Long id, LocalDateTime start, LocalDateTime end, Status status,
+                      Long bookerId, String bookerName, Long itemId, String itemName) {
+        this.id = id;
+        this.start = start;
+        this.end = end;
+        this.status = status;
+
+        this.booker = new User();
+        this.booker.setId(bookerId);
+        this.booker.setName(bookerName);
+
+        this.item = new ItemSmallDto();
+        this.item.setId(itemId);
+        this.item.setName(itemName);
+    }
+}
@@ -9,6 +9,8 @@ import java.time.LocalDateTime;
 @Data
 public class BookingRequest {
 
+    public static final int MAX_BOOKING_YEARS = 10;
+
     @NotNull(message = "ID предмета не может быть пустым")
     private Long itemId;
 
@@ -30,5 +32,13 @@ public class BookingRequest {
         }
         return end.isAfter(start);
     }
+
+    @AssertTrue(message = "Дата окончания не может быть позже чем через " + MAX_BOOKING_YEARS + " лет")
+    public boolean isEndWithinHorizon() {
+        if (end == null) {
+            return true;
+        }
+        return !end.isAfter(LocalDateTime.now().plusYears(MAX_BOOKING_YEARS));
+    }
 }
 
@@ -0,0 +1,6 @@
+package ru.practicum.shareit.booking.dto;
+
+public interface ItemBookingInterval extends BookingInterval {
+
+    Long getItemId();
+}
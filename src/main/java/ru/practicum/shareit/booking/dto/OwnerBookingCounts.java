@@ -0,0 +1,21 @@
+package ru.practicum.shareit.booking.dto;
+
+/**
+ * Число бронирований вещей владельца по состояниям на заданный момент, см. {@code BookingRepository.countByOwnerIds}.
+ */
+public interface OwnerBookingCounts {
+
+    Long getOwnerId();
+
+    Long getTotal();
+
+    Long getCurrent();
+
+    Long getPast();
+
+    Long getFuture();
+
+    Long getWaiting();
+
+    Long getRejected();
+}
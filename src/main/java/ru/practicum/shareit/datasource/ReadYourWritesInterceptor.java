@@ -0,0 +1,92 @@
+package ru.practicum.shareit.datasource;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Закрепляет за основной базой запросы, меняющие данные, и запросы пользователя, менявшего данные
+ * в последние {@link ReplicaProperties#getReadYourWrites()}: реплика могла ещё не получить его изменения.
+ * Пользователь определяется по {@value #USER_HEADER}; запросы без него читают из реплики.
+ * Закрепление снимается после запроса, а для асинхронных ответов — когда поток контейнера освобождается.
+ */
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String USER_HEADER = "X-Sharer-User-Id";
+
+    private final ReplicaRoutingDataSource dataSource;
+    private final long windowNanos;
+    // время последнего изменения данных пользователем, System.nanoTime()
+    private final Map<Long, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesInterceptor(ReplicaRoutingDataSource dataSource, ReplicaProperties properties) {
+        this.dataSource = dataSource;
+        this.windowNanos = properties.getReadYourWrites().toNanos();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        // поток мог остаться закреплённым после запроса, для которого afterCompletion не был вызван
+        dataSource.unpin();
+        Long userId = userId(request);
+        long now = System.nanoTime();
+        boolean writes = !HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod());
+        if (writes) {
+            if (userId != null) {
+                lastWrites.put(userId, now);
+            }
+            dataSource.pinToPrimary();
+        } else if (userId != null && wroteRecently(userId, now)) {
+            dataSource.pinToPrimary();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        dataSource.unpin();
+    }
+
+    /**
+     * При асинхронной обработке afterCompletion первого диспетчинга не вызывается,
+     * а поток контейнера сразу переходит к другим запросам.
+     */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        dataSource.unpin();
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.datasource.replica.purge-interval:PT1M}")
+    public void purge() {
+        long now = System.nanoTime();
+        lastWrites.entrySet().removeIf(entry -> now - entry.getValue() > windowNanos);
+    }
+
+    private boolean wroteRecently(Long userId, long now) {
+        Long lastWrite = lastWrites.get(userId);
+        return lastWrite != null && now - lastWrite <= windowNanos;
+    }
+
+    private static Long userId(HttpServletRequest request) {
+        String header = request.getHeader(USER_HEADER);
+        if (header == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(header.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Реплика для чтения. Без {@link #url} все запросы идут в основную базу. Логин и пароль по умолчанию те же,
+ * что у основной базы. Если реплика недоступна и {@link #fallback} включён, чтения {@link #retryAfter}
+ * идут в основную базу. Пользователь, менявший данные, {@link #readYourWrites} читает из основной базы.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "shareit.datasource.replica")
+public class ReplicaProperties {
+
+    private String url;
+    private String username;
+    private String password;
+    private int maximumPoolSize = 10;
+    private boolean fallback = true;
+    private Duration retryAfter = Duration.ofSeconds(30);
+    private Duration readYourWrites = Duration.ofSeconds(5);
+}
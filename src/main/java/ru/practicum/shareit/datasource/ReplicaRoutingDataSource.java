@@ -0,0 +1,108 @@
+package ru.practicum.shareit.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Выдаёт соединения реплики read-only транзакциям, остальным — соединения основной базы. Решение принимается
+ * при получении соединения, поэтому источник оборачивается в
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: тот берёт соединение при первом
+ * запросе, когда признак read-only транзакции уже выставлен. Поток, закреплённый {@link #pinToPrimary()},
+ * читает из основной базы.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaProperties properties;
+    private final ThreadLocal<Boolean> pinned = new ThreadLocal<>();
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+    private final Counter fallbacks;
+
+    private volatile long replicaDownUntil = System.nanoTime();
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaProperties properties,
+                                    MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.properties = properties;
+        this.primaryConnections = connections("primary", meterRegistry);
+        this.replicaConnections = connections("replica", meterRegistry);
+        this.fallbacks = Counter.builder("datasource.replica.fallbacks")
+                .description("Чтения, ушедшие в основную базу из-за недоступной реплики")
+                .register(meterRegistry);
+    }
+
+    public void pinToPrimary() {
+        pinned.set(Boolean.TRUE);
+    }
+
+    public void unpin() {
+        pinned.remove();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (!readsFromReplica()) {
+            primaryConnections.increment();
+            return connect(primary, username, password);
+        }
+        try {
+            Connection connection = connect(replica, username, password);
+            replicaConnections.increment();
+            return connection;
+        } catch (SQLException e) {
+            if (!properties.isFallback()) {
+                throw e;
+            }
+            replicaDownUntil = System.nanoTime() + properties.getRetryAfter().toNanos();
+            log.warn("Реплика недоступна, чтения идут в основную базу {}: {}", properties.getRetryAfter(),
+                    e.getMessage());
+            fallbacks.increment();
+            primaryConnections.increment();
+            return connect(primary, username, password);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (DataSource pool : new DataSource[]{primary, replica}) {
+            if (pool instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private boolean readsFromReplica() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && pinned.get() == null
+                && System.nanoTime() - replicaDownUntil >= 0;
+    }
+
+    private static Connection connect(DataSource target, String username, String password) throws SQLException {
+        return username == null ? target.getConnection() : target.getConnection(username, password);
+    }
+
+    private static Counter connections(String target, MeterRegistry meterRegistry) {
+        return Counter.builder("datasource.routing.connections")
+                .description("Соединения, выданные read-only и пишущим транзакциям")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+}
@@ -1,7 +1,12 @@
 package ru.practicum.shareit.exception;
 
 import jakarta.validation.ConstraintViolationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -11,9 +16,12 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import java.util.HashMap;
 import java.util.Map;
 
+@Slf4j
 @RestControllerAdvice
 public class ErrorHandler {
 
+    private static final String BOOKING_OVERLAP_CONSTRAINT = "bookings_no_overlap";
+
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public Map<String, String> handleValidationExceptions(MethodArgumentNotValidException ex) {
@@ -56,6 +64,54 @@ public class ErrorHandler {
         );
     }
 
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ExceptionHandler(ConflictException.class)
+    public ErrorResponse handleConflictException(final ConflictException e) {
+        return new ErrorResponse(
+                e.getMessage(),
+                "Обнаружен конфликт данных"
+        );
+    }
+
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ErrorResponse handleOptimisticLockingFailureException(final ObjectOptimisticLockingFailureException e) {
+        return new ErrorResponse(
+                "Объект изменён параллельным запросом",
+                "Обнаружен конфликт данных"
+        );
+    }
+
+    /**
+     * Конфликтом считается только нарушение {@value #BOOKING_OVERLAP_CONSTRAINT}; остальные нарушения
+     * целостности — непредвиденные ошибки, текст SQL и имена ограничений клиенту не отдаются.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ErrorResponse> handleDataIntegrityViolationException(
+            final DataIntegrityViolationException e) {
+        if (!violates(e, BOOKING_OVERLAP_CONSTRAINT)) {
+            log.error("Нарушение целостности данных", e);
+            return ResponseEntity.internalServerError().body(new ErrorResponse(
+                    "Произошла непредвиденная ошибка",
+                    "Попробуйте повторить запрос позже"
+            ));
+        }
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(new ErrorResponse(
+                "Вещь уже забронирована на пересекающиеся даты",
+                "Обнаружен конфликт данных"
+        ));
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorResponse> handleTooManyRequestsException(final TooManyRequestsException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(new ErrorResponse(
+                        e.getMessage(),
+                        "Слишком много запросов, повторите позже"
+                ));
+    }
+
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(ValidationException.class)
     public ErrorResponse handleValidationException(final ValidationException e) {
@@ -74,6 +130,17 @@ public class ErrorHandler {
         );
     }
 
+    private static boolean violates(DataIntegrityViolationException e, String constraint) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof org.hibernate.exception.ConstraintViolationException violation
+                    && constraint.equalsIgnoreCase(violation.getConstraintName())) {
+                return true;
+            }
+        }
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.contains(constraint);
+    }
+
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     @ExceptionHandler(Throwable.class)
     public ErrorResponse handleThrowable(final Throwable e) {
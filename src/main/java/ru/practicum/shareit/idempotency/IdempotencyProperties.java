@@ -0,0 +1,20 @@
+package ru.practicum.shareit.idempotency;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Настройки хранения ответов по заголовку Idempotency-Key: сколько ответ доступен для повтора
+ * и сколько ключей держится в памяти; остальные читаются из таблицы idempotency_keys.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "shareit.idempotency")
+public class IdempotencyProperties {
+
+    private Duration ttl = Duration.ofHours(24);
+    private int maxEntries = 10_000;
+}
@@ -0,0 +1,40 @@
+package ru.practicum.shareit.idempotency;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "idempotency_keys")
+public class IdempotencyRecord implements Persistable<String> {
+
+    @Id
+    @Column(name = "key_id", length = 512)
+    private String id;
+
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    // null, пока запрос выполняется; ключ и ответ фиксируются одной транзакцией
+    @Column(name = "response", length = 65535)
+    private String response;
+
+    @Column(name = "created", nullable = false)
+    private LocalDateTime created;
+
+    // записи только добавляются, поэтому save выполняет INSERT без предварительного SELECT
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+}
@@ -0,0 +1,183 @@
+package ru.practicum.shareit.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.exception.InternalServerException;
+import ru.practicum.shareit.exception.ValidationException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Повтор запроса с тем же заголовком {@value #HEADER} возвращает сохранённый ответ первого выполнения,
+ * не вызывая проверки и сервисы. Ключ действует в пределах пользователя и эндпоинта; ответ ищется сначала
+ * в {@link IdempotencyStore}, затем в таблице idempotency_keys. Ключ записывается в одной транзакции
+ * с созданием сущности, ответы с ошибкой не сохраняются.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore store;
+    private final IdempotencyRepository repository;
+    private final IdempotencyProperties properties;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public IdempotencyService(IdempotencyStore store, IdempotencyRepository repository,
+                              IdempotencyProperties properties, ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager) {
+        this.store = store;
+        this.repository = repository;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public <T> T execute(String key, Long userId, String endpoint, Object request, Class<T> responseType,
+                         Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ValidationException("Заголовок " + HEADER + " должен быть непустым и не длиннее "
+                    + MAX_KEY_LENGTH + " символов");
+        }
+
+        String id = userId + " " + endpoint + " " + key;
+        String requestHash = hash(request);
+        LocalDateTime now = LocalDateTime.now();
+        IdempotencyStore.Entry existing = store.claim(id, requestHash, now);
+        if (existing != null) {
+            return replay(key, existing, requestHash, responseType);
+        }
+
+        try {
+            Optional<IdempotencyRecord> stored = repository.findById(id);
+            if (stored.isPresent() && !expired(stored.get(), now)) {
+                return replayStored(key, id, stored.get(), requestHash, responseType);
+            }
+
+            boolean expiredExists = stored.isPresent();
+            return transactionTemplate.execute(status -> {
+                claim(id, requestHash, now, expiredExists);
+                T response = action.get();
+                String body = write(response);
+                repository.complete(id, body);
+                // в памяти ответ появляется только вместе с зафиксированной сущностью
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        store.complete(id, requestHash, body, now);
+                    }
+                });
+                return response;
+            });
+        } catch (KeyClaimedException e) {
+            store.release(id);
+            // ключ занял параллельный запрос, например на другом экземпляре, и его транзакция уже завершилась
+            return repository.findById(id)
+                    .filter(record -> !expired(record, now))
+                    .map(record -> replayStored(key, id, record, requestHash, responseType))
+                    .orElseThrow(() -> new ConflictException("Запрос с ключом " + HEADER + "=" + key
+                            + " ещё выполняется"));
+        } catch (RuntimeException e) {
+            store.release(id);
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.idempotency.purge-interval:PT10M}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        store.purge(now);
+        int deleted = repository.deleteCreatedBefore(now.minus(properties.getTtl()));
+        if (deleted > 0) {
+            log.info("Удалено {} просроченных ключей идемпотентности", deleted);
+        }
+    }
+
+    /**
+     * Занимает ключ в таблице до выполнения запроса. Параллельный INSERT того же ключа ждёт завершения
+     * этой транзакции и затем получает нарушение первичного ключа. Просроченная запись, которую ещё
+     * не удалил {@link #purgeExpired()}, перезаписывается.
+     */
+    private void claim(String id, String requestHash, LocalDateTime now, boolean expiredExists) {
+        try {
+            LocalDateTime expiredBefore = now.minus(properties.getTtl());
+            if (expiredExists && repository.takeOverExpired(id, requestHash, now, expiredBefore) > 0) {
+                return;
+            }
+            repository.saveAndFlush(new IdempotencyRecord(id, requestHash, null, now));
+        } catch (DataIntegrityViolationException e) {
+            throw new KeyClaimedException();
+        }
+    }
+
+    private <T> T replayStored(String key, String id, IdempotencyRecord record, String requestHash,
+                               Class<T> responseType) {
+        IdempotencyStore.Entry entry = new IdempotencyStore.Entry(record.getRequestHash(), record.getResponse(),
+                record.getCreated());
+        if (!entry.isInProgress()) {
+            store.complete(id, record.getRequestHash(), record.getResponse(), record.getCreated());
+        }
+        return replay(key, entry, requestHash, responseType);
+    }
+
+    private boolean expired(IdempotencyRecord record, LocalDateTime now) {
+        return record.getCreated().plus(properties.getTtl()).isBefore(now);
+    }
+
+    private <T> T replay(String key, IdempotencyStore.Entry entry, String requestHash, Class<T> responseType) {
+        if (entry.isInProgress()) {
+            throw new ConflictException("Запрос с ключом " + HEADER + "=" + key + " ещё выполняется");
+        }
+        if (!entry.getRequestHash().equals(requestHash)) {
+            throw new ConflictException("Ключ " + HEADER + "=" + key + " уже использован для другого запроса");
+        }
+        log.info("Повтор запроса с ключом {}={}, возвращается сохранённый ответ", HEADER, key);
+        try {
+            return objectMapper.readValue(entry.getResponse(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new InternalServerException("Не удалось прочитать сохранённый ответ: " + e.getMessage());
+        }
+    }
+
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new InternalServerException("Не удалось сохранить ответ: " + e.getMessage());
+        }
+    }
+
+    // откатывает транзакцию запроса, чтобы ответ был прочитан из записи, занявшей ключ
+    private static class KeyClaimedException extends RuntimeException {
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(write(request).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package ru.practicum.shareit.idempotency;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ответы по ключам идемпотентности в памяти. Размер ограничен {@link IdempotencyProperties#getMaxEntries()}:
+ * при переполнении вытесняются самые старые завершённые записи, записи старше TTL считаются отсутствующими.
+ * Ключ, по которому запрос ещё выполняется, хранится как запись без ответа и не вытесняется.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotencyStore {
+
+    private final IdempotencyProperties properties;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // ключи в порядке появления в entries, каждый не больше одного раза; длина очереди — в queued
+    private final Queue<String> order = new ConcurrentLinkedQueue<>();
+    private final Set<String> queuedIds = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger queued = new AtomicInteger();
+
+    /**
+     * Занимает ключ под выполнение запроса.
+     *
+     * @return null, если ключ занят этим вызовом, иначе существующая запись
+     */
+    public Entry claim(String id, String requestHash, LocalDateTime now) {
+        Entry claimed = new Entry(requestHash, null, now);
+        Entry existing = entries.compute(id, (key, entry) -> entry == null || expired(entry, now) ? claimed : entry);
+        if (existing != claimed) {
+            return existing;
+        }
+        // занятый заново просроченный ключ уже стоит в очереди
+        enqueue(id);
+        evict();
+        return null;
+    }
+
+    /**
+     * Сохраняет ответ. Ключ может быть не занят этим экземпляром, если ответ восстановлен из базы.
+     */
+    public void complete(String id, String requestHash, String response, LocalDateTime created) {
+        if (entries.put(id, new Entry(requestHash, response, created)) == null) {
+            enqueue(id);
+            evict();
+        }
+    }
+
+    public void release(String id) {
+        entries.computeIfPresent(id, (key, entry) -> entry.isInProgress() ? null : entry);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void purge(LocalDateTime now) {
+        entries.entrySet().removeIf(entry -> !entry.getValue().isInProgress() && expired(entry.getValue(), now));
+        // очередь проходится один раз: ключи удалённых записей выбывают, остальные встают обратно по порядку
+        for (int remaining = queued.get(); remaining > 0; remaining--) {
+            String id = dequeue();
+            if (id == null) {
+                return;
+            }
+            if (entries.containsKey(id)) {
+                enqueue(id);
+            }
+        }
+    }
+
+    private void evict() {
+        for (int attempts = queued.get(); entries.size() > properties.getMaxEntries() && attempts > 0; attempts--) {
+            String id = dequeue();
+            if (id == null) {
+                return;
+            }
+            Entry kept = entries.computeIfPresent(id, (key, entry) -> entry.isInProgress() ? entry : null);
+            if (kept != null) {
+                enqueue(id);
+            }
+        }
+    }
+
+    // ключ, освобождённый release, остаётся в очереди до вытеснения или очистки и повторно не добавляется
+    private void enqueue(String id) {
+        if (queuedIds.add(id)) {
+            order.add(id);
+            queued.incrementAndGet();
+        }
+    }
+
+    private String dequeue() {
+        String id = order.poll();
+        if (id != null) {
+            queued.decrementAndGet();
+            queuedIds.remove(id);
+        }
+        return id;
+    }
+
+    private boolean expired(Entry entry, LocalDateTime now) {
+        return entry.getCreated().plus(properties.getTtl()).isBefore(now);
+    }
+
+    @Value
+    public static class Entry {
+        String requestHash;
+        String response;
+        LocalDateTime created;
+
+        public boolean isInProgress() {
+            return response == null;
+        }
+    }
+}
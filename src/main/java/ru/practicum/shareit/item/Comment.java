@@ -17,7 +17,7 @@ public class Comment {
     @Column(name = "content")
     String text;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id", nullable = false)
     Item item;
 
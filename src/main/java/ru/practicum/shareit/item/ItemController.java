@@ -1,13 +1,21 @@
 package ru.practicum.shareit.item;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import ru.practicum.shareit.batch.BatchElementResult;
+import ru.practicum.shareit.booking.dto.AvailabilitySlotDto;
+import ru.practicum.shareit.idempotency.IdempotencyService;
 import ru.practicum.shareit.item.dto.*;
 import ru.practicum.shareit.validation.Validation;
 
-
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -15,21 +23,37 @@ import java.util.List;
 @RestController
 @RequestMapping("/items")
 @RequiredArgsConstructor
+@Validated
 public class ItemController {
 
     private final Validation validation;
     private final ItemServiceImpl itemServiceImpl;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping
     public ItemDto createItem(
             @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestHeader(name = IdempotencyService.HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody NewItemRequest request) {
         log.info("Вещь: запрос на создание {}", request);
-        validation.userIdValidation(userId);
-        ItemDto createItem = itemServiceImpl.create(userId, request);
-        log.info("Вещь создана с id={}", createItem.getId());
-        return createItem;
+        return idempotencyService.execute(idempotencyKey, userId, "POST /items", request, ItemDto.class, () -> {
+            validation.userIdValidation(userId);
+            ItemDto createItem = itemServiceImpl.create(userId, request);
+            log.info("Вещь создана с id={}", createItem.getId());
+            return createItem;
+        });
+    }
 
+    @PostMapping("/batch")
+    public List<BatchElementResult<ItemDto>> createItems(
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestBody List<NewItemRequest> requests) {
+        log.info("Вещь: запрос на пакетное создание {} вещей", requests.size());
+        validation.userIdValidation(userId);
+        validation.batchSizeValidation(requests);
+        List<BatchElementResult<ItemDto>> results = itemServiceImpl.createAll(userId, requests);
+        log.info("Вещи: пакетное создание завершено, элементов {}", results.size());
+        return results;
     }
 
     @PatchMapping("/{itemId}")
@@ -53,11 +77,26 @@ public class ItemController {
 
     @GetMapping("/{itemId}")
     public ItemDtoWithDates getItem(@PathVariable Long itemId,
-                                    @RequestHeader("X-Sharer-User-Id") Long userId) {
+                                    @RequestHeader("X-Sharer-User-Id") Long userId,
+                                    WebRequest webRequest) {
         log.info("Вещь: запрос на получение по id={}", itemId);
-        validation.itemExistValidation(itemId);
         validation.userIdValidation(userId);
-        return itemServiceImpl.getById(itemId, userId);
+        // наличие вещи проверяет сервис по версии, не загружая её
+        // при совпадении If-None-Match ответ 304 без тела, ETag выставляется в обоих случаях
+        return itemServiceImpl.getByIdIfModified(itemId, userId, webRequest::checkNotModified).orElse(null);
+    }
+
+    @GetMapping("/{itemId}/availability")
+    public List<AvailabilitySlotDto> getItemAvailability(
+            @PathVariable Long itemId,
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("Вещь: запрос календаря занятости id={} с {} по {}", itemId, from, to);
+        validation.userIdValidation(userId);
+        validation.itemExistValidation(itemId);
+        validation.availabilityPeriodValidation(from, to);
+        return itemServiceImpl.getAvailability(itemId, from, to);
     }
 
     @GetMapping
@@ -71,14 +110,16 @@ public class ItemController {
     @GetMapping("/search")
     public List<ItemDto> searchItems(
             @RequestHeader("X-Sharer-User-Id") Long userId,
-            @RequestParam String text) {
+            @RequestParam String text,
+            @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
+            @RequestParam(required = false) @Positive Integer size) {
         log.info("Вещь: запрос поиск по тексту");
         validation.userIdValidation(userId);
 
         if (text.isEmpty()) {
             return new ArrayList<>(0);
         }
-        return itemServiceImpl.getByText(text);
+        return itemServiceImpl.getByText(text, from, size);
     }
 
 
@@ -1,22 +1,78 @@
 package ru.practicum.shareit.item;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.item.dto.ItemSearchRow;
+import ru.practicum.shareit.item.dto.ItemVersion;
 
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ItemJpaRepository extends JpaRepository<Item, Long> {
 
+    /**
+     * Сколько строк драйвер забирает из курсора за один раз при поиске по подстроке.
+     */
+    int STREAM_FETCH_SIZE = 500;
+
     List<Item> findAllByOwnerId(Long userId);
 
-    @Query("SELECT i FROM Item i " +
+    /**
+     * Все доступные вещи для построения поискового индекса: только поля индекса, без загрузки сущностей и владельцев.
+     */
+    @Query("SELECT i.id AS id, i.name AS name, i.description AS description, i.owner.id AS ownerId " +
+            "FROM Item i " +
+            "WHERE i.available = true")
+    List<ItemSearchRow> findAllAvailableSearchRows();
+
+    boolean existsByOwnerId(Long ownerId);
+
+    @Query("SELECT i FROM Item i JOIN FETCH i.owner WHERE i.id IN :ids")
+    List<Item> findAllWithOwnerByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Доступные вещи, в названии или описании которых встречается текст. Строки читаются из курсора
+     * порциями по {@link #STREAM_FETCH_SIZE}; вызывать внутри транзакции.
+     */
+    @Query("SELECT i.id AS id, i.name AS name, i.description AS description, i.owner.id AS ownerId " +
+            "FROM Item i " +
             "WHERE (available = true) " +
             "AND (LOWER(i.name) " +
             "LIKE LOWER(CONCAT('%', :text, '%')) " +
             " OR LOWER(i.description) LIKE LOWER(CONCAT('%', :text, '%')))")
-    List<Item> findAllByText(@Param("text") String text);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    Stream<ItemSearchRow> streamAllByText(@Param("text") String text);
+
+    /**
+     * Поля ETag вещи для условного GET: сама вещь загружается, только если ETag не совпал.
+     * Даты бронирований совпадают с {@code BookingRepository.findLastDateBookingByItemIds}
+     * и {@code findNextDateBookingByItemIds}.
+     */
+    @Query("SELECT i.id AS id, i.version AS version, i.owner.id AS ownerId, " +
+            "(SELECT COALESCE(SUM(c.author.version), 0) FROM Comment c WHERE c.item.id = i.id) AS authorsVersion, " +
+            "(SELECT MAX(b.endDate) FROM Booking b WHERE b.item.id = i.id " +
+            "AND b.endDate < CURRENT_TIMESTAMP AND b.status = 'APPROVED') AS lastDate, " +
+            "(SELECT MIN(b.startDate) FROM Booking b WHERE b.item.id = i.id " +
+            "AND b.status = 'APPROVED' AND b.startDate >= CURRENT_TIMESTAMP) AS nextDate " +
+            "FROM Item i WHERE i.id = :itemId")
+    Optional<ItemVersion> findVersionById(@Param("itemId") Long itemId);
+
+    /**
+     * Меняет ETag вещи, когда меняются не её поля, а комментарии или подтверждённые бронирования.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Item i SET i.version = i.version + 1 WHERE i.id = :itemId")
+    int incrementVersion(@Param("itemId") Long itemId);
 }
@@ -0,0 +1,235 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSearchRow;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Инвертированный индекс по n-граммам (n = 1..3) названий и описаний доступных вещей.
+ * Повторяет семантику LOWER(field) LIKE LOWER('%text%') из {@link ItemJpaRepository#streamAllByText(String)}:
+ * кандидаты отбираются по самому короткому списку триграмм и затем проверяются точным поиском подстроки
+ * при ранжировании.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSearchIndex {
+
+    private static final int MAX_GRAM = 3;
+
+    private final ItemJpaRepository itemRepository;
+
+    private volatile Postings postings = new Postings();
+    private volatile boolean ready;
+    // вещи, изменённые во время построения индекса; null, пока построение не идёт
+    private Set<Long> changedDuringRebuild;
+
+    /**
+     * Строит индекс по снимку доступных вещей в отдельных структурах и подменяет ими текущие целиком.
+     * Вещи, проиндексированные или удалённые после начала построения, берутся из текущего индекса:
+     * снимок мог прочитать их устаревшую версию.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (this) {
+            changedDuringRebuild = new HashSet<>();
+        }
+        Postings fresh = new Postings();
+        for (ItemSearchRow row : itemRepository.findAllAvailableSearchRows()) {
+            fresh.add(IndexedItem.of(row));
+        }
+        synchronized (this) {
+            for (Long id : changedDuringRebuild) {
+                fresh.remove(id);
+                IndexedItem current = postings.items.get(id);
+                if (current != null) {
+                    fresh.add(current);
+                }
+            }
+            changedDuringRebuild = null;
+            postings = fresh;
+            ready = true;
+        }
+        log.info("Поисковый индекс вещей построен: {} вещей, {} n-грамм", fresh.items.size(), fresh.grams.size());
+    }
+
+    /**
+     * Индекс используется только после начального построения и только для текста без спецсимволов LIKE,
+     * в остальных случаях поиск выполняется запросом к базе.
+     */
+    public boolean supports(String text) {
+        return ready && text.indexOf('%') < 0 && text.indexOf('_') < 0 && text.indexOf('\\') < 0;
+    }
+
+    /**
+     * Запоминает текущие поля вещи и переносит их в индекс после фиксации транзакции: откаченное изменение
+     * в поиск не попадает. Вне транзакции индекс обновляется сразу.
+     */
+    public void index(Item item) {
+        Long itemId = item.getId();
+        IndexedItem indexed = Boolean.TRUE.equals(item.getAvailable()) ? IndexedItem.of(item) : null;
+        afterCommit(() -> replace(itemId, indexed));
+    }
+
+    public synchronized void remove(Long itemId) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(itemId);
+        }
+        postings.remove(itemId);
+    }
+
+    private synchronized void replace(Long itemId, IndexedItem indexed) {
+        remove(itemId);
+        if (indexed != null) {
+            postings.add(indexed);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Страница результатов по убыванию релевантности, см. {@link RankedItems}.
+     */
+    public List<ItemDto> search(String text, int from, int size) {
+        String query = lower(text);
+        Postings current = postings;
+        RankedItems<IndexedItem> ranked = new RankedItems<>(query, from, size);
+        for (Long id : current.candidates(query)) {
+            IndexedItem item = current.items.get(id);
+            if (item != null) {
+                ranked.offer(item, id, item.getLowerName(), item.getLowerDescription());
+            }
+        }
+        List<IndexedItem> page = ranked.page();
+        List<ItemDto> result = new ArrayList<>(page.size());
+        for (IndexedItem item : page) {
+            result.add(item.toDto());
+        }
+        return result;
+    }
+
+    private static Set<String> grams(IndexedItem item) {
+        Set<String> grams = new HashSet<>();
+        addGrams(item.getLowerName(), grams);
+        addGrams(item.getLowerDescription(), grams);
+        return grams;
+    }
+
+    private static void addGrams(String value, Set<String> grams) {
+        for (int i = 0; i < value.length(); i++) {
+            for (int n = 1; n <= MAX_GRAM && i + n <= value.length(); n++) {
+                grams.add(value.substring(i, i + n));
+            }
+        }
+    }
+
+    static String lower(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Вещи и списки n-грамм. Поиск работает с тем экземпляром, который был текущим на момент его начала.
+     */
+    private static final class Postings {
+        private final Map<Long, IndexedItem> items = new ConcurrentHashMap<>();
+        private final Map<String, Set<Long>> grams = new ConcurrentHashMap<>();
+
+        void add(IndexedItem item) {
+            items.put(item.getId(), item);
+            for (String gram : grams(item)) {
+                grams.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(item.getId());
+            }
+        }
+
+        void remove(Long itemId) {
+            IndexedItem indexed = items.remove(itemId);
+            if (indexed == null) {
+                return;
+            }
+            for (String gram : grams(indexed)) {
+                Set<Long> ids = grams.get(gram);
+                if (ids != null) {
+                    ids.remove(itemId);
+                    if (ids.isEmpty()) {
+                        grams.remove(gram);
+                    }
+                }
+            }
+        }
+
+        Set<Long> candidates(String query) {
+            if (query.length() <= MAX_GRAM) {
+                return grams.getOrDefault(query, Set.of());
+            }
+
+            Set<Long> smallest = null;
+            for (int i = 0; i + MAX_GRAM <= query.length(); i++) {
+                Set<Long> ids = grams.get(query.substring(i, i + MAX_GRAM));
+                if (ids == null) {
+                    return Set.of();
+                }
+                if (smallest == null || ids.size() < smallest.size()) {
+                    smallest = ids;
+                }
+            }
+            // проверка подстроки в search отсекает кандидатов, у которых триграммы совпали не в том порядке
+            return new HashSet<>(smallest);
+        }
+    }
+
+    @Value
+    private static class IndexedItem {
+        Long id;
+        String name;
+        String description;
+        Long ownerId;
+        String lowerName;
+        String lowerDescription;
+
+        static IndexedItem of(Item item) {
+            return new IndexedItem(item.getId(), item.getName(), item.getDescription(), item.getOwner().getId(),
+                    lower(item.getName()), lower(item.getDescription()));
+        }
+
+        static IndexedItem of(ItemSearchRow row) {
+            return new IndexedItem(row.getId(), row.getName(), row.getDescription(), row.getOwnerId(),
+                    lower(row.getName()), lower(row.getDescription()));
+        }
+
+        ItemDto toDto() {
+            ItemDto dto = new ItemDto();
+            dto.setId(id);
+            dto.setName(name);
+            dto.setDescription(description);
+            dto.setAvailable(true);
+            dto.setOwnerId(ownerId);
+            return dto;
+        }
+    }
+}
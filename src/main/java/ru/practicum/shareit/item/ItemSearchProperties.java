@@ -0,0 +1,17 @@
+package ru.practicum.shareit.item;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки поиска вещей: наибольший размер страницы. Он же используется, когда {@code size} не передан,
+ * поэтому в памяти ранжирования никогда не остаётся больше {@code from + maxSize} вещей.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "shareit.search")
+public class ItemSearchProperties {
+
+    private int maxSize = 1000;
+}
@@ -1,21 +1,36 @@
 package ru.practicum.shareit.item;
 
+import ru.practicum.shareit.batch.BatchElementResult;
+import ru.practicum.shareit.booking.dto.AvailabilitySlotDto;
 import ru.practicum.shareit.item.dto.*;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
 
 
 public interface ItemService {
 
     ItemDto create(Long userId, NewItemRequest request);
 
+    List<BatchElementResult<ItemDto>> createAll(Long userId, List<NewItemRequest> requests);
+
     ItemDto update(Long itemId, UpdateItemRequest request);
 
     ItemDtoWithDates getById(Long itemId, Long userId);
 
+    Optional<ItemDtoWithDates> getByIdIfModified(Long itemId, Long userId, Predicate<String> notModified);
+
     List<ItemDtoWithDates> getAllByUserId(Long userId);
 
-    List<ItemDto> getByText(String text);
+    /**
+     * Доступные вещи с текстом в названии или описании, по убыванию релевантности, страница from/size.
+     * Без {@code size} возвращается не больше {@code shareit.search.max-size} вещей, как и при большем {@code size}.
+     */
+    List<ItemDto> getByText(String text, int from, Integer size);
 
     CommentDto createComment(Long userId, Long itemId, NewCommentRequest request);
+
+    List<AvailabilitySlotDto> getAvailability(Long itemId, LocalDate from, LocalDate to);
 }
@@ -3,80 +3,187 @@ package ru.practicum.shareit.item;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.batch.BatchElementResult;
+import ru.practicum.shareit.booking.BookingServiceImpl;
+import ru.practicum.shareit.booking.dto.AvailabilitySlotDto;
 import ru.practicum.shareit.exception.NotFoundException;
 
 import ru.practicum.shareit.item.dto.*;
 
 import ru.practicum.shareit.user.User;
-import ru.practicum.shareit.user.UserJpaRepository;
+import ru.practicum.shareit.validation.RequestEntityCache;
+import ru.practicum.shareit.validation.Validation;
 
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
+@Transactional(readOnly = true)
 public class ItemServiceImpl implements ItemService {
     private final ItemJpaRepository itemRepository;
     private final ItemMapper itemMapper;
     private final CommentRepository commentRepository;
     private final CommentMapper commentMapper;
-    private final UserJpaRepository userRepository;
+    private final RequestEntityCache entityCache;
+    private final ItemSearchIndex itemSearchIndex;
+    private final BookingServiceImpl bookingService;
+    private final Validation validation;
+    private final ItemSearchProperties searchProperties;
 
     @Override
+    @Transactional
     public ItemDto create(Long userId, NewItemRequest request) {
-        User owner = userRepository.findById(userId)
+        User owner = entityCache.findUser(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден с ID: " + userId));
-        Item newItem = ItemMapper.mapToItem(request, owner);
-        return itemMapper.mapToItemDto(itemRepository.save(newItem));
+        Item newItem = itemRepository.save(ItemMapper.mapToItem(request, owner));
+        itemSearchIndex.index(newItem);
+        return itemMapper.mapToItemDto(newItem);
+    }
+
+    /**
+     * Создаёт вещи пакетом: некорректные элементы получают ошибку, остальные сохраняются одним saveAll
+     * с пакетной вставкой.
+     */
+    @Override
+    @Transactional
+    public List<BatchElementResult<ItemDto>> createAll(Long userId, List<NewItemRequest> requests) {
+        User owner = entityCache.findUser(userId)
+                .orElseThrow(() -> new NotFoundException("Пользователь не найден с ID: " + userId));
+
+        List<BatchElementResult<ItemDto>> results = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        List<Integer> indexes = new ArrayList<>();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            String violations = validation.batchElementViolations(requests.get(i));
+            if (violations != null) {
+                results.set(i, BatchElementResult.failure(i, violations));
+            } else {
+                indexes.add(i);
+                items.add(ItemMapper.mapToItem(requests.get(i), owner));
+            }
+        }
+
+        List<Item> saved = itemRepository.saveAll(items);
+        for (int i = 0; i < saved.size(); i++) {
+            int index = indexes.get(i);
+            itemSearchIndex.index(saved.get(i));
+            results.set(index, BatchElementResult.success(index, itemMapper.mapToItemDto(saved.get(i))));
+        }
+        return results;
     }
 
 
     @Override
+    @Transactional
     public ItemDto update(Long itemId, UpdateItemRequest request) {
-        Item item = itemRepository.findById(itemId).orElseThrow(() ->
+        Item item = entityCache.findItem(itemId).orElseThrow(() ->
                 new NotFoundException("Вещи с id: " + itemId + " не существует"));
         Item updateItem = ItemMapper.updateItemFields(item, request);
         itemRepository.save(updateItem);
+        itemSearchIndex.index(updateItem);
         return itemMapper.mapToItemDto(updateItem);
 
     }
 
     @Override
     public ItemDtoWithDates getById(Long itemId, Long userId) {
-        Item item = itemRepository.findById(itemId).orElseThrow(() ->
-                new NotFoundException("Вещи с id: " + itemId + " не существует"));
-        return itemMapper.mapToItemDtoWithDates(item, userId);
+        return getByIdIfModified(itemId, userId, eTag -> false).orElseThrow();
+    }
 
+    /**
+     * Вещь, если её ETag не совпал с {@code notModified}. ETag строится из версии вещи, а для владельца ещё
+     * и из дат последнего и следующего бронирования: они меняются со временем без изменения вещи. Имена авторов
+     * комментариев учитываются через сумму их версий.
+     * Для сравнения читается только {@link ItemVersion}, сама вещь и комментарии загружаются для изменившейся.
+     */
+    @Override
+    public Optional<ItemDtoWithDates> getByIdIfModified(Long itemId, Long userId, Predicate<String> notModified) {
+        ItemVersion version = itemRepository.findVersionById(itemId).orElseThrow(() ->
+                new NotFoundException("Вещи с id: " + itemId + " не существует"));
+        LocalDateTime lastDate = null;
+        LocalDateTime nextDate = null;
+        String eTag = version.getId() + "-" + version.getVersion() + "-" + version.getAuthorsVersion();
+        if (userId.equals(version.getOwnerId())) {
+            lastDate = version.getLastDate();
+            nextDate = version.getNextDate();
+            eTag += "-" + Integer.toHexString(Objects.hash(lastDate, nextDate));
+        }
+        if (notModified.test("\"" + eTag + "\"")) {
+            return Optional.empty();
+        }
+        Item item = entityCache.findItem(itemId).orElseThrow(() ->
+                new NotFoundException("Вещи с id: " + itemId + " не существует"));
+        List<Comment> comments = commentRepository.findAllByItemIdIn(List.of(itemId));
+        return Optional.of(itemMapper.mapToItemDtoWithDates(item, comments, lastDate, nextDate));
     }
 
     @Override
     public List<ItemDtoWithDates> getAllByUserId(Long userId) {
 
         List<Item> itemsList = itemRepository.findAllByOwnerId(userId);
-        return itemsList.stream()
-                .map(i -> itemMapper.mapToItemDtoWithDates(i, userId))
+        if (itemsList.isEmpty()) {
+            return List.of();
+        }
+        List<Long> itemIds = itemsList.stream()
+                .map(Item::getId)
                 .toList();
+        Map<Long, List<Comment>> comments = commentRepository.findAllByItemIdIn(itemIds).stream()
+                .collect(Collectors.groupingBy(comment -> comment.getItem().getId()));
+        return itemMapper.mapToItemDtoWithDates(itemsList, comments, userId);
 
     }
 
     @Override
-    public List<ItemDto> getByText(String text) {
-        List<Item> itemsList = itemRepository.findAllByText(text);
-        return itemsList.stream()
+    public List<ItemDto> getByText(String text, int from, Integer size) {
+        // без size или с size больше предела отдаётся не больше maxSize вещей: куча ранжирования всегда ограничена
+        int limit = size == null ? searchProperties.getMaxSize() : Math.min(size, searchProperties.getMaxSize());
+        if (itemSearchIndex.supports(text)) {
+            return itemSearchIndex.search(text, from, limit);
+        }
+        // текст со спецсимволами LIKE или индекс ещё не построен: ранжируем ответ базы так же,
+        // в памяти остаются только from + size лучших строк
+        RankedItems<ItemSearchRow> ranked = new RankedItems<>(ItemSearchIndex.lower(text), from, limit);
+        try (Stream<ItemSearchRow> rows = itemRepository.streamAllByText(text)) {
+            rows.forEach(row -> ranked.accept(row, row.getId(), ItemSearchIndex.lower(row.getName()),
+                    ItemSearchIndex.lower(row.getDescription())));
+        }
+        return ranked.page().stream()
                 .map(itemMapper::mapToItemDto)
                 .toList();
     }
 
     @Override
+    @Transactional
     public CommentDto createComment(Long userId, Long itemId, NewCommentRequest request) {
 
-        User user = userRepository.findById(userId)
+        User user = entityCache.findUser(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден с ID: " + userId));
 
-        Item item = itemRepository.findById(itemId).orElseThrow(() ->
+        Item item = entityCache.findItem(itemId).orElseThrow(() ->
                 new NotFoundException("Вещи с id: " + itemId + " не существует"));
 
         Comment comment = commentMapper.mapToComment(user, item, request);
-        return commentMapper.mapToCommentDto(commentRepository.save(comment));
+        CommentDto saved = commentMapper.mapToCommentDto(commentRepository.save(comment));
+        itemRepository.incrementVersion(itemId);
+        return saved;
+    }
+
+    // расписание вещи загружается из основной базы, см. BookingServiceImpl#getAvailability
+    @Override
+    @Transactional
+    public List<AvailabilitySlotDto> getAvailability(Long itemId, LocalDate from, LocalDate to) {
+        return bookingService.getAvailability(itemId, from, to);
     }
 }
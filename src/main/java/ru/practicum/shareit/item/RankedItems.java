@@ -0,0 +1,111 @@
+package ru.practicum.shareit.item;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Страница from/size лучших по релевантности результатов поиска. Совпадение в названии важнее любого числа
+ * совпадений в описании, дальше решает число вхождений, при равенстве — меньший id. Хранится не больше
+ * from + size результатов: куча держит худший из них на вершине и вытесняет его более релевантным.
+ */
+final class RankedItems<T> {
+
+    private final String query;
+    private final int from;
+    private final int limit;
+    private final PriorityQueue<Hit<T>> heap = new PriorityQueue<>();
+
+    RankedItems(String lowerQuery, int from, int size) {
+        this.query = lowerQuery;
+        this.from = from;
+        this.limit = (int) Math.min((long) from + size, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Учитывает вещь, если запрос встречается в названии или описании. Строки уже в нижнем регистре.
+     */
+    void offer(T item, long id, String lowerName, String lowerDescription) {
+        int nameHits = occurrences(lowerName, query);
+        int descriptionHits = occurrences(lowerDescription, query);
+        if (nameHits != 0 || descriptionHits != 0) {
+            add(item, id, nameHits, descriptionHits);
+        }
+    }
+
+    /**
+     * Учитывает вещь, которую уже отобрал LIKE-запрос к базе. Запрос со спецсимволами LIKE может не входить
+     * в строку буквально: такая вещь остаётся в выдаче с нулевым числом вхождений, после буквальных совпадений.
+     */
+    void accept(T item, long id, String lowerName, String lowerDescription) {
+        add(item, id, occurrences(lowerName, query), occurrences(lowerDescription, query));
+    }
+
+    private void add(T item, long id, int nameHits, int descriptionHits) {
+        if (heap.size() < limit) {
+            heap.add(new Hit<>(item, id, nameHits, descriptionHits));
+            return;
+        }
+        Hit<T> worst = heap.peek();
+        if (worst != null && worst.isWorseThan(id, nameHits, descriptionHits)) {
+            heap.poll();
+            heap.add(new Hit<>(item, id, nameHits, descriptionHits));
+        }
+    }
+
+    List<T> page() {
+        List<Hit<T>> hits = new ArrayList<>(heap);
+        Collections.sort(hits, Collections.reverseOrder());
+        List<T> page = new ArrayList<>(Math.max(hits.size() - from, 0));
+        for (int i = from; i < hits.size(); i++) {
+            page.add(hits.get(i).item);
+        }
+        return page;
+    }
+
+    private static int occurrences(String value, String query) {
+        if (query.isEmpty()) {
+            return 0;
+        }
+        int count = 0;
+        for (int i = value.indexOf(query); i >= 0; i = value.indexOf(query, i + query.length())) {
+            count++;
+        }
+        return count;
+    }
+
+    // естественный порядок — от худшего к лучшему, чтобы вершина кучи была кандидатом на вытеснение
+    private static final class Hit<T> implements Comparable<Hit<T>> {
+        private final T item;
+        private final long id;
+        private final int nameHits;
+        private final int descriptionHits;
+
+        Hit(T item, long id, int nameHits, int descriptionHits) {
+            this.item = item;
+            this.id = id;
+            this.nameHits = nameHits;
+            this.descriptionHits = descriptionHits;
+        }
+
+        boolean isWorseThan(long otherId, int otherNameHits, int otherDescriptionHits) {
+            return compare(otherId, otherNameHits, otherDescriptionHits) < 0;
+        }
+
+        @Override
+        public int compareTo(Hit<T> other) {
+            return compare(other.id, other.nameHits, other.descriptionHits);
+        }
+
+        private int compare(long otherId, int otherNameHits, int otherDescriptionHits) {
+            if (nameHits != otherNameHits) {
+                return Integer.compare(nameHits, otherNameHits);
+            }
+            if (descriptionHits != otherDescriptionHits) {
+                return Integer.compare(descriptionHits, otherDescriptionHits);
+            }
+            return Long.compare(otherId, id);
+        }
+    }
+}
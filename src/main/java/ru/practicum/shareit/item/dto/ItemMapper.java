@@ -5,12 +5,14 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 import ru.practicum.shareit.booking.BookingServiceImpl;
+import ru.practicum.shareit.item.Comment;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.user.User;
 
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Component
 @RequiredArgsConstructor
@@ -41,6 +43,16 @@ public class ItemMapper {
         return dto;
     }
 
+    public ItemDto mapToItemDto(ItemSearchRow row) {
+        ItemDto dto = new ItemDto();
+        dto.setId(row.getId());
+        dto.setName(row.getName());
+        dto.setDescription(row.getDescription());
+        dto.setAvailable(true);
+        dto.setOwnerId(row.getOwnerId());
+        return dto;
+    }
+
     public ItemDtoWithComments mapToItemDtoWithComments(Item item) {
         ItemDtoWithComments dto = new ItemDtoWithComments();
         dto.setId(item.getId());
@@ -55,7 +67,33 @@ public class ItemMapper {
         return dto;
     }
 
-    public ItemDtoWithDates mapToItemDtoWithDates(Item item, Long userId) {
+    public ItemDtoWithDates mapToItemDtoWithDates(Item item, List<Comment> comments, Long userId) {
+        if (userId.equals(item.getOwner().getId())) {
+            LocalDateTime lastDate = bookingService.getLastDateBooking(item.getId()).orElse(null);
+            LocalDateTime nextDate = bookingService.getNextDateBooking(item.getId()).orElse(null);
+            return mapToItemDtoWithDates(item, comments, lastDate, nextDate);
+        }
+        return mapToItemDtoWithDates(item, comments, null, null);
+    }
+
+    public List<ItemDtoWithDates> mapToItemDtoWithDates(List<Item> items, Map<Long, List<Comment>> comments,
+                                                        Long userId) {
+        List<Long> ownItemIds = items.stream()
+                .filter(item -> userId.equals(item.getOwner().getId()))
+                .map(Item::getId)
+                .toList();
+
+        Map<Long, LocalDateTime> lastDates = bookingService.getLastDateBookings(ownItemIds);
+        Map<Long, LocalDateTime> nextDates = bookingService.getNextDateBookings(ownItemIds);
+
+        return items.stream()
+                .map(item -> mapToItemDtoWithDates(item, comments.getOrDefault(item.getId(), List.of()),
+                        lastDates.get(item.getId()), nextDates.get(item.getId())))
+                .toList();
+    }
+
+    public ItemDtoWithDates mapToItemDtoWithDates(Item item, List<Comment> comments,
+                                                  LocalDateTime lastDate, LocalDateTime nextDate) {
         ItemDtoWithDates dto = new ItemDtoWithDates();
         dto.setId(item.getId());
         dto.setName(item.getName());
@@ -63,21 +101,10 @@ public class ItemMapper {
         dto.setAvailable(item.getAvailable());
         dto.setOwnerId(item.getOwner().getId());
 
+        dto.setComments(commentMapper.mapToCommentDto(comments));
 
-        List<CommentDto> comments = commentMapper.mapToCommentDto(item.getComments());
-        dto.setComments(comments);
-
-        if (userId.equals(item.getOwner().getId())) {
-            LocalDateTime lastDate = bookingService.getLastDateBooking(item.getId()).orElse(null);
-            LocalDateTime nextDate = bookingService.getNextDateBooking(item.getId()).orElse(null);
-            dto.setLastBooking(lastDate);
-            dto.setNextBooking(nextDate);
-
-        } else {
-            dto.setLastBooking(null);
-            dto.setNextBooking(null);
-            return dto;
-        }
+        dto.setLastBooking(lastDate);
+        dto.setNextBooking(nextDate);
         return dto;
     }
 
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.item.dto;
+
+/**
+ * Доступная вещь, найденная поиском по подстроке: только поля ответа, без загрузки сущности и владельца.
+ */
+public interface ItemSearchRow {
+
+    Long getId();
+
+    String getName();
+
+    String getDescription();
+
+    Long getOwnerId();
+}
@@ -0,0 +1,25 @@
+package ru.practicum.shareit.item.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Всё, из чего строится ETag вещи: версия, владелец, версии авторов комментариев и даты последнего и следующего
+ * подтверждённого бронирования. Читается одним запросом без загрузки сущности.
+ */
+public interface ItemVersion {
+
+    Long getId();
+
+    Long getVersion();
+
+    Long getOwnerId();
+
+    /**
+     * Сумма версий авторов комментариев: растёт, когда любой из них меняет имя, которое показывается в ответе.
+     */
+    Long getAuthorsVersion();
+
+    LocalDateTime getLastDate();
+
+    LocalDateTime getNextDate();
+}
@@ -0,0 +1,30 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.outbox.BookingEvent;
+import ru.practicum.shareit.outbox.BookingEventSubscriber;
+
+import java.util.List;
+
+/**
+ * Считает события о бронированиях по типам в метрике booking.events. При повторной доставке пачки
+ * события считаются ещё раз.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingEventMetricsSubscriber implements BookingEventSubscriber {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public void onEvents(List<BookingEvent> events) {
+        events.forEach(event -> Counter.builder("booking.events")
+                .description("События о бронированиях из outbox")
+                .tag("type", event.getType().name())
+                .register(meterRegistry)
+                .increment());
+    }
+}
@@ -0,0 +1,44 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.common.KeyValues;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.States;
+
+import java.util.Set;
+
+/**
+ * Добавляет к http.server.requests тег booking.state из параметра state списков бронирований
+ * (без параметра списки отдают ALL).
+ * Недопустимые значения сводятся к invalid, чтобы произвольный ввод не раздувал число временных рядов.
+ */
+@Component
+public class BookingStateObservationConvention extends DefaultServerRequestObservationConvention {
+
+    private static final String STATE_PARAM = "state";
+    private static final String INVALID = "invalid";
+    private static final Set<String> BOOKING_LISTS = Set.of("/bookings", "/bookings/owner");
+
+    @Override
+    public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        return super.getLowCardinalityKeyValues(context)
+                .and(BookingStateRepositoryTagsProvider.BOOKING_STATE_TAG,
+                        stateOf(context.getCarrier()));
+    }
+
+    private static String stateOf(HttpServletRequest request) {
+        String value = request.getParameter(STATE_PARAM);
+        if (value == null) {
+            return BOOKING_LISTS.contains(request.getRequestURI())
+                    ? States.ALL.name()
+                    : BookingStateRepositoryTagsProvider.NONE;
+        }
+        try {
+            return States.valueOf(value).name();
+        } catch (IllegalArgumentException e) {
+            return INVALID;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.boot.actuate.metrics.data.DefaultRepositoryTagsProvider;
+import org.springframework.data.repository.core.support.RepositoryMethodInvocationListener.RepositoryMethodInvocation;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.States;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * К стандартным тегам spring.data.repository.invocations добавляет booking.state — состояние из {@link States},
+ * которое выбирает метод репозитория, чтобы двенадцать запросов по состояниям различались на дашбордах.
+ */
+@Component
+public class BookingStateRepositoryTagsProvider extends DefaultRepositoryTagsProvider {
+
+    public static final String BOOKING_STATE_TAG = "booking.state";
+    static final String NONE = "none";
+
+    private final Map<Method, Tag> stateTags = new ConcurrentHashMap<>();
+
+    @Override
+    public Iterable<Tag> repositoryTags(RepositoryMethodInvocation invocation) {
+        Tag stateTag = stateTags.computeIfAbsent(invocation.getMethod(),
+                method -> Tag.of(BOOKING_STATE_TAG, stateOf(method.getName())));
+        return Tags.of(super.repositoryTags(invocation)).and(stateTag);
+    }
+
+    static String stateOf(String methodName) {
+        if (methodName.equals("findAllByUserId") || methodName.equals("findAllByOwnerId")) {
+            return States.ALL.name();
+        }
+        int index = methodName.indexOf("AndState");
+        if (index < 0) {
+            return NONE;
+        }
+        String state = methodName.substring(index + "AndState".length()).toUpperCase();
+        for (States value : States.values()) {
+            if (value.name().equals(state)) {
+                return state;
+            }
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,106 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Считает SQL-запросы каждого HTTP-запроса, пишет их в метрику sql.statements и предупреждает в логе,
+ * если эндпоинт вышел за бюджет из {@link SqlStatementBudgetProperties}. В профиле diagnostic число запросов
+ * возвращается в заголовке {@value #STATEMENT_COUNT_HEADER}; для этого ответ буферизуется.
+ * Потоковые ответы пишутся в отдельном потоке после выхода из фильтра: их тело не буферизуется,
+ * а в счётчик попадают только запросы, выполненные до начала выгрузки.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SqlStatementBudgetFilter extends OncePerRequestFilter {
+
+    public static final String STATEMENT_COUNT_HEADER = "X-Sql-Statement-Count";
+    public static final String STATEMENT_COUNT_ATTRIBUTE = SqlStatementBudgetFilter.class.getName() + ".count";
+
+    private final SqlStatementCounter counter;
+    private final SqlStatementBudgetProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper buffered = properties.isExposeHeader()
+                ? new SyncContentCachingResponseWrapper(request, response)
+                : null;
+
+        long statements;
+        counter.start();
+        try {
+            chain.doFilter(request, buffered == null ? response : buffered);
+        } finally {
+            statements = counter.stop();
+        }
+        request.setAttribute(STATEMENT_COUNT_ATTRIBUTE, statements);
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern != null) {
+            check(request.getMethod(), pattern.toString(), statements);
+        }
+
+        if (buffered != null) {
+            if (!request.isAsyncStarted()) {
+                buffered.setHeader(STATEMENT_COUNT_HEADER, String.valueOf(statements));
+            }
+            buffered.copyBodyToResponse();
+        }
+    }
+
+    private void check(String method, String pattern, long statements) {
+        DistributionSummary.builder("sql.statements")
+                .description("SQL-запросы на один HTTP-запрос")
+                .tag("method", method)
+                .tag("uri", pattern)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(statements);
+
+        String endpoint = method + " " + pattern;
+        int budget = properties.budgetFor(endpoint);
+        if (statements > budget) {
+            log.warn("Превышен бюджет SQL-запросов: {} выполнил {} при бюджете {}", endpoint, statements, budget);
+        }
+    }
+
+    /**
+     * Буферизует тело только синхронных ответов; после начала асинхронной обработки пишет напрямую в ответ.
+     */
+    private static final class SyncContentCachingResponseWrapper extends ContentCachingResponseWrapper {
+
+        private final HttpServletRequest request;
+
+        SyncContentCachingResponseWrapper(HttpServletRequest request, HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            return request.isAsyncStarted() ? getResponse().getOutputStream() : super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            return request.isAsyncStarted() ? getResponse().getWriter() : super.getWriter();
+        }
+    }
+}
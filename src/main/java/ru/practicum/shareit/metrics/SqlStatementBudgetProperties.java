@@ -0,0 +1,26 @@
+package ru.practicum.shareit.metrics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Бюджеты SQL-запросов на HTTP-запрос. Ключ — метод и шаблон пути, например {@code GET /items/{itemId}};
+ * эндпоинты без своего бюджета получают {@link #defaultBudget}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "shareit.sql-budget")
+public class SqlStatementBudgetProperties {
+
+    private int defaultBudget = 10;
+    private boolean exposeHeader;
+    private Map<String, Integer> endpoints = new HashMap<>();
+
+    public int budgetFor(String endpoint) {
+        return endpoints.getOrDefault(endpoint, defaultBudget);
+    }
+}
@@ -0,0 +1,25 @@
+package ru.practicum.shareit.outbox;
+
+import lombok.Value;
+import ru.practicum.shareit.booking.Status;
+
+import java.time.LocalDateTime;
+
+/**
+ * Событие outbox в том виде, в каком его получают подписчики. Доставка «хотя бы один раз»: после ошибки
+ * событие приходит повторно. {@code id} уникален, но не следует порядку фиксации транзакций (последовательность
+ * выдаёт идентификаторы блоками, параллельные транзакции фиксируются в любом порядке), поэтому повторы
+ * отбрасываются по множеству уже обработанных {@code id}, а не по максимальному полученному.
+ */
+@Value
+public class BookingEvent {
+    Long id;
+    BookingEventType type;
+    Long bookingId;
+    Long itemId;
+    Long bookerId;
+    Status status;
+    LocalDateTime startDate;
+    LocalDateTime endDate;
+    LocalDateTime created;
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.outbox;
+
+import java.util.List;
+
+/**
+ * Получатель событий о бронированиях внутри приложения; все бины этого типа подключаются к {@link OutboxDispatcher}.
+ * Доставка «хотя бы один раз»: если один из подписчиков бросил исключение, пачка повторяется целиком
+ * для всех подписчиков, поэтому обработка должна быть идемпотентной.
+ */
+public interface BookingEventSubscriber {
+
+    void onEvents(List<BookingEvent> events);
+}
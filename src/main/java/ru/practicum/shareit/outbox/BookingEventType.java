@@ -0,0 +1,9 @@
+package ru.practicum.shareit.outbox;
+
+public enum BookingEventType {
+    CREATED,
+    APPROVED,
+    REJECTED,
+    // не подтверждено до начала и отменено BookingExpiryJob
+    EXPIRED
+}
@@ -0,0 +1,32 @@
+package ru.practicum.shareit.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.Booking;
+
+import java.util.List;
+
+/**
+ * Запись событий в outbox. Вызывается только внутри транзакции изменения бронирования: событие
+ * фиксируется или откатывается вместе с ним.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingOutbox {
+
+    private final OutboxEventRepository repository;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(BookingEventType type, Booking booking) {
+        repository.save(OutboxEvent.of(type, booking));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAll(BookingEventType type, List<Booking> bookings) {
+        repository.saveAll(bookings.stream()
+                .map(booking -> OutboxEvent.of(type, booking))
+                .toList());
+    }
+}
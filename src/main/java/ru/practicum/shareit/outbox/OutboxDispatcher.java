@@ -0,0 +1,185 @@
+package ru.practicum.shareit.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.Status;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Разбирает outbox пачками: в одной транзакции блокирует самые старые события, отдаёт их всем
+ * {@link BookingEventSubscriber} и удаляет. При ошибке подписчика транзакция откатывается, и события этой пачки
+ * доставляются по одному, каждое в своей транзакции. Событие, которое подписчики отвергли, получает попытку
+ * в {@code attempts}, а после {@code maxAttempts} попыток помечается dead_letter и больше не выбирается,
+ * так что одно «ядовитое» событие не останавливает разбор остальных. SKIP LOCKED позволяет нескольким
+ * экземплярам разбирать таблицу без повторной доставки одних и тех же строк.
+ * Работает через JDBC, а не JPA: фоновые запросы не попадают в статистику Hibernate и бюджеты HTTP-запросов.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+
+    private static final String SELECT_BATCH = "SELECT event_id, event_type, booking_id, item_id, booker_id, status, "
+            + "start_date, end_date, created FROM outbox_events WHERE dead_letter = FALSE ORDER BY event_id LIMIT ? "
+            + "FOR UPDATE SKIP LOCKED";
+    private static final String SELECT_IDS = "SELECT event_id FROM outbox_events WHERE dead_letter = FALSE "
+            + "ORDER BY event_id LIMIT ?";
+    private static final String SELECT_ONE = "SELECT event_id, event_type, booking_id, item_id, booker_id, status, "
+            + "start_date, end_date, created FROM outbox_events WHERE event_id = ? AND dead_letter = FALSE "
+            + "FOR UPDATE SKIP LOCKED";
+    private static final String DELETE = "DELETE FROM outbox_events WHERE event_id = ?";
+    private static final String RECORD_ATTEMPT = "UPDATE outbox_events SET attempts = attempts + 1, "
+            + "dead_letter = attempts + 1 >= ? WHERE event_id = ?";
+    private static final String IS_DEAD_LETTER = "SELECT dead_letter FROM outbox_events WHERE event_id = ?";
+
+    private static final RowMapper<BookingEvent> EVENT = (rs, rowNum) -> new BookingEvent(
+            rs.getLong("event_id"),
+            BookingEventType.valueOf(rs.getString("event_type")),
+            rs.getLong("booking_id"),
+            rs.getLong("item_id"),
+            rs.getLong("booker_id"),
+            Status.valueOf(rs.getString("status")),
+            rs.getObject("start_date", LocalDateTime.class),
+            rs.getObject("end_date", LocalDateTime.class),
+            rs.getObject("created", LocalDateTime.class));
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+    private final List<BookingEventSubscriber> subscribers;
+    private final OutboxProperties properties;
+    private final Timer batchTimer;
+    private final Counter dispatched;
+    private final Counter failures;
+    private final Counter deadLettered;
+    // возраст самого старого события на момент последнего опроса
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    public OutboxDispatcher(JdbcTemplate jdbc, PlatformTransactionManager transactionManager,
+                            List<BookingEventSubscriber> subscribers, OutboxProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.jdbc = jdbc;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.subscribers = subscribers;
+        this.properties = properties;
+        this.batchTimer = Timer.builder("outbox.dispatch")
+                .description("Доставка одной пачки событий outbox")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.dispatched = Counter.builder("outbox.events.dispatched")
+                .description("Доставленные события outbox")
+                .register(meterRegistry);
+        this.failures = Counter.builder("outbox.dispatch.failures")
+                .description("Пачки outbox, не доставленные из-за ошибки подписчика")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("outbox.events.dead-lettered")
+                .description("События outbox, отложенные после maxAttempts неудачных доставок")
+                .register(meterRegistry);
+        TimeGauge.builder("outbox.lag", lagMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Возраст самого старого недоставленного события")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.outbox.poll-interval:PT1S}")
+    public void poll() {
+        if (properties.isDispatcherEnabled()) {
+            dispatch();
+        }
+    }
+
+    /**
+     * Разбирает не больше {@code maxBatchesPerPoll} пачек и возвращает число доставленных событий.
+     */
+    public int dispatch() {
+        int total = 0;
+        for (int batch = 0; batch < properties.getMaxBatchesPerPoll(); batch++) {
+            Integer delivered;
+            try {
+                delivered = batchTimer.record(() -> transactionTemplate.execute(status -> dispatchBatch()));
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.warn("Не удалось доставить пачку событий outbox, доставка по одному", e);
+                total += dispatchOneByOne();
+                break;
+            }
+            total += delivered;
+            if (delivered < properties.getBatchSize()) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    private int dispatchBatch() {
+        List<BookingEvent> events = jdbc.query(SELECT_BATCH, EVENT, properties.getBatchSize());
+        lagMillis.set(events.isEmpty() ? 0
+                : Duration.between(events.getFirst().getCreated(), LocalDateTime.now()).toMillis());
+        if (events.isEmpty()) {
+            return 0;
+        }
+        subscribers.forEach(subscriber -> subscriber.onEvents(events));
+        jdbc.batchUpdate(DELETE, events.stream()
+                .map(event -> new Object[]{event.getId()})
+                .toList());
+        dispatched.increment(events.size());
+        log.debug("Доставлено событий outbox: {}", events.size());
+        return events.size();
+    }
+
+    /**
+     * Доставляет самые старые события по одному, чтобы ошибка на одном событии не задерживала остальные.
+     * Отвергнутые события остаются в таблице и повторяются при следующем опросе.
+     */
+    private int dispatchOneByOne() {
+        int delivered = 0;
+        for (Long id : jdbc.queryForList(SELECT_IDS, Long.class, properties.getBatchSize())) {
+            try {
+                Integer one = transactionTemplate.execute(status -> dispatchOne(id));
+                delivered += one;
+            } catch (RuntimeException e) {
+                recordAttempt(id, e);
+            }
+        }
+        return delivered;
+    }
+
+    private int dispatchOne(Long id) {
+        List<BookingEvent> events = jdbc.query(SELECT_ONE, EVENT, id);
+        if (events.isEmpty()) {
+            // уже доставлено или заблокировано другим экземпляром
+            return 0;
+        }
+        subscribers.forEach(subscriber -> subscriber.onEvents(events));
+        jdbc.update(DELETE, id);
+        dispatched.increment();
+        return 1;
+    }
+
+    private void recordAttempt(Long id, RuntimeException cause) {
+        Boolean dead = transactionTemplate.execute(status -> {
+            jdbc.update(RECORD_ATTEMPT, properties.getMaxAttempts(), id);
+            return jdbc.query(IS_DEAD_LETTER, (rs, rowNum) -> rs.getBoolean(1), id).stream()
+                    .findFirst()
+                    .orElse(false);
+        });
+        if (Boolean.TRUE.equals(dead)) {
+            deadLettered.increment();
+            log.error("Событие outbox {} не доставлено за {} попыток и отложено", id, properties.getMaxAttempts(),
+                    cause);
+        } else {
+            log.warn("Не удалось доставить событие outbox {}, повтор при следующем опросе", id, cause);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package ru.practicum.shareit.outbox;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.Status;
+
+import java.time.LocalDateTime;
+
+/**
+ * Событие об изменении бронирования, записанное в той же транзакции, что и само изменение.
+ * Строка удаляется {@link OutboxDispatcher} после доставки подписчикам; если доставка раз за разом
+ * не удаётся, строка остаётся с {@code deadLetter = true} для ручного разбора.
+ */
+@Data
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_seq")
+    @SequenceGenerator(name = "outbox_seq", sequenceName = "outbox_seq", allocationSize = 50)
+    @Column(name = "event_id")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false)
+    private BookingEventType type;
+
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Column(name = "booker_id", nullable = false)
+    private Long bookerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private Status status;
+
+    @Column(name = "start_date")
+    private LocalDateTime startDate;
+
+    @Column(name = "end_date")
+    private LocalDateTime endDate;
+
+    @Column(name = "created", nullable = false)
+    private LocalDateTime created;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "dead_letter", nullable = false)
+    private boolean deadLetter;
+
+    public static OutboxEvent of(BookingEventType type, Booking booking) {
+        OutboxEvent event = new OutboxEvent();
+        event.setType(type);
+        event.setBookingId(booking.getBookingId());
+        event.setItemId(booking.getItem().getId());
+        event.setBookerId(booking.getBooker().getId());
+        event.setStatus(booking.getStatus());
+        event.setStartDate(booking.getStartDate());
+        event.setEndDate(booking.getEndDate());
+        event.setCreated(LocalDateTime.now());
+        return event;
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.outbox;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки выгрузки outbox: размер пачки и сколько пачек подряд разбирается за один опрос.
+ * Остальные события ждут следующего опроса в таблице, так что медленные подписчики не накапливают их в памяти.
+ * Событие, которое подписчики не приняли {@code maxAttempts} раз подряд, остаётся в таблице с пометкой dead_letter
+ * и больше не выбирается.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "shareit.outbox")
+public class OutboxProperties {
+
+    private boolean dispatcherEnabled = true;
+    private int batchSize = 100;
+    private int maxBatchesPerPoll = 50;
+    private int maxAttempts = 5;
+}
@@ -0,0 +1,54 @@
+package ru.practicum.shareit.ratelimit;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.practicum.shareit.exception.TooManyRequestsException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Применяет {@link RateLimiter} до вызова контроллера. Запросы без корректного {@value #USER_HEADER}
+ * пропускаются — их отклонит сам контроллер. Повторные (асинхронные) диспетчеризации не считаются.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    public static final String USER_HEADER = "X-Sharer-User-Id";
+
+    private final RateLimiter rateLimiter;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        String header = request.getHeader(USER_HEADER);
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (header == null || pattern == null) {
+            return true;
+        }
+        Long userId;
+        try {
+            userId = Long.valueOf(header.trim());
+        } catch (NumberFormatException e) {
+            return true;
+        }
+
+        long wait = rateLimiter.acquire(request.getMethod(), pattern.toString(), userId, System.nanoTime());
+        if (wait > 0) {
+            long retryAfter = Math.max(1, (wait + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            String endpoint = request.getMethod() + " " + pattern;
+            log.info("Превышен лимит запросов: пользователь {}, {}", userId, endpoint);
+            throw new TooManyRequestsException("Превышен лимит запросов к " + endpoint, retryAfter);
+        }
+        return true;
+    }
+}
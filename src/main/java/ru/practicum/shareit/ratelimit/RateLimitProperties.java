@@ -0,0 +1,34 @@
+package ru.practicum.shareit.ratelimit;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Лимиты запросов на пользователя. Ключ — метод и шаблон пути, например {@code GET /items/search};
+ * эндпоинты без своего лимита делят между собой {@link #defaultLimit}, если он задан.
+ * Корзина пользователя, не обращавшегося дольше {@link #idleTimeout}, удаляется.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "shareit.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    private Limit defaultLimit;
+    private Map<String, Limit> endpoints = new HashMap<>();
+    private Duration idleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * Корзина на {@code capacity} запросов, пополняемая со скоростью {@code perSecond} запросов в секунду.
+     */
+    @Data
+    public static class Limit {
+        private int capacity;
+        private double perSecond;
+    }
+}
@@ -0,0 +1,105 @@
+package ru.practicum.shareit.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket на пользователя и эндпоинт без блокировок. Корзина хранится одним числом — моментом,
+ * когда она снова станет полной (GCRA): запрос сдвигает его на интервал пополнения одним CAS,
+ * а отказ ничего не меняет. Время — {@link System#nanoTime()}.
+ */
+@Slf4j
+@Component
+public class RateLimiter {
+
+    // шаблон пути -> метод -> правило, чтобы не собирать строку ключа на каждый запрос
+    private final Map<String, Map<String, Rule>> rules = new HashMap<>();
+    private final Rule defaultRule;
+    private final long idleNanos;
+
+    public RateLimiter(RateLimitProperties properties) {
+        properties.getEndpoints().forEach((endpoint, limit) -> {
+            String[] methodAndPattern = endpoint.split(" ", 2);
+            rules.computeIfAbsent(methodAndPattern[1], pattern -> new HashMap<>())
+                    .put(methodAndPattern[0], new Rule(limit));
+        });
+        defaultRule = properties.getDefaultLimit() == null ? null : new Rule(properties.getDefaultLimit());
+        idleNanos = properties.getIdleTimeout().toNanos();
+    }
+
+    /**
+     * Забирает токен из корзины пользователя.
+     *
+     * @return 0, если запрос разрешён, иначе через сколько наносекунд появится токен
+     */
+    public long acquire(String method, String pattern, Long userId, long now) {
+        Map<String, Rule> byMethod = rules.get(pattern);
+        Rule rule = byMethod == null ? defaultRule : byMethod.getOrDefault(method, defaultRule);
+        return rule == null ? 0 : rule.acquire(userId, now);
+    }
+
+    /**
+     * Удаляет корзины, которые давно полны. Запрос, успевший получить удаляемую корзину, спишет токен
+     * с неё, а не с новой, — для простаивавшего пользователя это не больше одного лишнего запроса.
+     */
+    @Scheduled(fixedDelayString = "${shareit.rate-limit.evict-interval:PT1M}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        int before = size();
+        rules.values().forEach(byMethod -> byMethod.values().forEach(rule -> rule.evictIdle(now, idleNanos)));
+        if (defaultRule != null) {
+            defaultRule.evictIdle(now, idleNanos);
+        }
+        log.debug("Удалено простаивающих корзин лимита запросов: {}", before - size());
+    }
+
+    public int size() {
+        int size = rules.values().stream()
+                .flatMap(byMethod -> byMethod.values().stream())
+                .mapToInt(rule -> rule.buckets.size())
+                .sum();
+        return defaultRule == null ? size : size + defaultRule.buckets.size();
+    }
+
+    private static final class Rule {
+
+        private final ConcurrentHashMap<Long, AtomicLong> buckets = new ConcurrentHashMap<>();
+        // время пополнения одного токена и всей корзины
+        private final long emissionNanos;
+        private final long burstNanos;
+
+        Rule(RateLimitProperties.Limit limit) {
+            emissionNanos = (long) (TimeUnit.SECONDS.toNanos(1) / limit.getPerSecond());
+            burstNanos = emissionNanos * limit.getCapacity();
+        }
+
+        long acquire(Long userId, long now) {
+            AtomicLong bucket = buckets.get(userId);
+            if (bucket == null) {
+                bucket = buckets.computeIfAbsent(userId, id -> new AtomicLong(now));
+            }
+            while (true) {
+                long fullAt = bucket.get();
+                long next = (fullAt - now > 0 ? fullAt : now) + emissionNanos;
+                long wait = next - now - burstNanos;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (bucket.compareAndSet(fullAt, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        void evictIdle(long now, long idleNanos) {
+            buckets.values().removeIf(bucket -> now - bucket.get() > idleNanos);
+        }
+    }
+}
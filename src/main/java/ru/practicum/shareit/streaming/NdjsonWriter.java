@@ -0,0 +1,47 @@
+package ru.practicum.shareit.streaming;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Пишет объекты в поток ответа в формате application/x-ndjson: один JSON-документ на строку.
+ * Буфер сбрасывается клиенту каждые {@value #FLUSH_EVERY} строк, так что первые записи приходят
+ * до того, как прочитана вся выборка.
+ */
+public final class NdjsonWriter<T> implements Consumer<T> {
+
+    static final int FLUSH_EVERY = 100;
+
+    private final ObjectWriter writer;
+    private final OutputStream out;
+    private long written;
+
+    public NdjsonWriter(ObjectMapper objectMapper, Class<T> type, OutputStream out) {
+        this.writer = objectMapper.writerFor(type).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.out = new BufferedOutputStream(out);
+    }
+
+    @Override
+    public void accept(T value) {
+        try {
+            writer.writeValue(out, value);
+            out.write('\n');
+            if (++written % FLUSH_EVERY == 0) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+}
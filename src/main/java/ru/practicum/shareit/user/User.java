@@ -1,7 +1,9 @@
 package ru.practicum.shareit.user;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
 
 @Data
 @Entity
@@ -14,4 +16,11 @@ public class User {
     private String name;
     @Column(nullable = false, unique = true)
     private String email;
+
+    // пользователь попадает в ответы о бронированиях как есть, версия в них не нужна
+    @JsonIgnore
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
 }
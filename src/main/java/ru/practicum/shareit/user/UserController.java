@@ -6,6 +6,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.validation.Validation;
 import ru.practicum.shareit.user.dto.NewUserRequest;
 import ru.practicum.shareit.user.dto.UpdateUserRequest;
@@ -52,12 +53,12 @@ public class UserController {
     }
 
     @GetMapping("/{id}")
-    public UserDto getById(@PathVariable long id) {
+    public UserDto getById(@PathVariable long id, WebRequest webRequest) {
         log.info("Пользователь: запрос на получение по id={}", id);
         validation.userIdValidation(id);
 
-        UserDto user = userServiceImpl.getById(id);
-        log.info("Найден пользователь: {}", user);
+        UserDto user = userServiceImpl.getByIdIfModified(id, webRequest::checkNotModified).orElse(null);
+        log.info("Найден пользователь: {}", user == null ? "не изменился" : user);
         return user;
     }
 
@@ -6,6 +6,7 @@ import ru.practicum.shareit.user.dto.UserDto;
 
 
 import java.util.*;
+import java.util.function.Predicate;
 
 public interface UserService {
 
@@ -17,5 +18,7 @@ public interface UserService {
 
     UserDto getById(long id);
 
+    Optional<UserDto> getByIdIfModified(long id, Predicate<String> notModified);
+
     void delete(Long id);
 }
\ No newline at end of file
@@ -2,21 +2,26 @@ package ru.practicum.shareit.user;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.user.dto.NewUserRequest;
 import ru.practicum.shareit.user.dto.UpdateUserRequest;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.dto.UserMapper;
+import ru.practicum.shareit.validation.RequestEntityCache;
 
 import java.util.*;
+import java.util.function.Predicate;
 
 @Service
 @RequiredArgsConstructor
-
+@Transactional(readOnly = true)
 public class UserServiceImpl implements UserService {
     private final UserJpaRepository userRepository;
+    private final RequestEntityCache entityCache;
 
     @Override
+    @Transactional
     public UserDto create(NewUserRequest request) {
 
         User user = UserMapper.mapToUser(request);
@@ -25,6 +30,7 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional
     public UserDto updateUser(long userId, UpdateUserRequest request) {
 
         User updatedUser = userRepository.findById(userId)
@@ -45,13 +51,24 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public UserDto getById(long id) {
+        return getByIdIfModified(id, eTag -> false).orElseThrow();
+    }
 
-        User user = userRepository.findById(id)
+    /**
+     * Пользователь, если ETag из его версии не совпал с {@code notModified}.
+     */
+    @Override
+    public Optional<UserDto> getByIdIfModified(long id, Predicate<String> notModified) {
+        User user = entityCache.findUser(id)
                 .orElseThrow(() -> new NotFoundException("Пользователь не найден с ID: " + id));
-        return UserMapper.mapToUserDto(user);
+        if (notModified.test("\"" + user.getId() + "-" + user.getVersion() + "\"")) {
+            return Optional.empty();
+        }
+        return Optional.of(UserMapper.mapToUserDto(user));
     }
 
     @Override
+    @Transactional
     public void delete(Long id) {
 
         userRepository.deleteById(id);
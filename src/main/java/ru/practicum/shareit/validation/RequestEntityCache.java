@@ -0,0 +1,82 @@
+package ru.practicum.shareit.validation;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemJpaRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserJpaRepository;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Кэш сущностей в пределах одного HTTP-запроса: {@link Validation} загружает пользователя, вещь или бронирование,
+ * а сервисы получают тот же экземпляр без повторного запроса к базе.
+ * Вне HTTP-запроса обращения передаются напрямую в репозитории.
+ */
+@Component
+@RequiredArgsConstructor
+public class RequestEntityCache {
+
+    private static final String ATTRIBUTE = RequestEntityCache.class.getName();
+
+    private final UserJpaRepository userRepository;
+    private final ItemJpaRepository itemRepository;
+    private final BookingRepository bookingRepository;
+
+    public Optional<User> findUser(Long userId) {
+        Entities entities = current();
+        return entities == null
+                ? userRepository.findById(userId)
+                : find(entities.users, userId, userRepository::findById);
+    }
+
+    public Optional<Item> findItem(Long itemId) {
+        Entities entities = current();
+        return entities == null
+                ? itemRepository.findById(itemId)
+                : find(entities.items, itemId, itemRepository::findById);
+    }
+
+    public Optional<Booking> findBooking(Long bookingId) {
+        Entities entities = current();
+        return entities == null
+                ? bookingRepository.findById(bookingId)
+                : find(entities.bookings, bookingId, bookingRepository::findById);
+    }
+
+    private static <T> Optional<T> find(Map<Long, Optional<T>> cache, Long id, Function<Long, Optional<T>> loader) {
+        Optional<T> entity = cache.get(id);
+        if (entity == null) {
+            entity = loader.apply(id);
+            cache.put(id, entity);
+        }
+        return entity;
+    }
+
+    private static Entities current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Entities entities = (Entities) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (entities == null) {
+            entities = new Entities();
+            attributes.setAttribute(ATTRIBUTE, entities, RequestAttributes.SCOPE_REQUEST);
+        }
+        return entities;
+    }
+
+    private static final class Entities {
+        private final Map<Long, Optional<User>> users = new HashMap<>();
+        private final Map<Long, Optional<Item>> items = new HashMap<>();
+        private final Map<Long, Optional<Booking>> bookings = new HashMap<>();
+    }
+}
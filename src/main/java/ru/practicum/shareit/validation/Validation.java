@@ -1,5 +1,7 @@
 package ru.practicum.shareit.validation;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
@@ -14,32 +16,40 @@ import ru.practicum.shareit.item.ItemJpaRepository;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.user.UserJpaRepository;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Component
 @RequiredArgsConstructor
 public class Validation {
 
+    private static final int MAX_AVAILABILITY_DAYS = 366;
+    private static final int MAX_BATCH_SIZE = 1000;
+
     private final UserJpaRepository userRepository;
     private final ItemJpaRepository itemRepository;
     private final BookingRepository bookingRepository;
+    private final RequestEntityCache entityCache;
+    private final Validator validator;
 
     public void userIdValidation(Long userId) {
 
-        if (!userRepository.existsById(userId)) {
+        if (entityCache.findUser(userId).isEmpty()) {
             throw new NotFoundException("Пользователь с id=" + userId + " не найден");
         }
     }
 
     public void itemExistValidation(Long itemId) {
-        if (!itemRepository.existsById(itemId)) {
+        if (entityCache.findItem(itemId).isEmpty()) {
             throw new NotFoundException("Вещь с id=" + itemId + " не найдена");
         }
     }
 
     public void ownerValidation(Long itemId, Long userId) {
-        Item item = itemRepository.findById(itemId).orElseThrow(() ->
+        Item item = entityCache.findItem(itemId).orElseThrow(() ->
                 new NotFoundException("Вещь с id=" + itemId + " не найдена"));
 
         if (!item.getOwner().getId().equals(userId)) {
@@ -55,7 +65,7 @@ public class Validation {
 
     public void itemStatusValidation(@NotNull(message = "ID предмета не может быть пустым") Long itemId) {
 
-        Item item = itemRepository.findById(itemId).orElseThrow(() ->
+        Item item = entityCache.findItem(itemId).orElseThrow(() ->
                 new NotFoundException("Вещь с id=" + itemId + " не найдена"));
         if (!item.getAvailable()) {
             throw new ValidationException("Вещь с id=" + itemId + " не доступна для аренды");
@@ -64,7 +74,7 @@ public class Validation {
 
     public void bookingValidation(Long bookingId) {
 
-        if (!bookingRepository.existsById(bookingId)) {
+        if (entityCache.findBooking(bookingId).isEmpty()) {
             throw new NotFoundException("Бронирование с id=" + bookingId + " не найдено");
         }
 
@@ -72,11 +82,11 @@ public class Validation {
 
     public void ownerItemByBookingValidation(Long bookingId, Long userId) {
 
-        if (!userRepository.existsById(userId)) {
+        if (entityCache.findUser(userId).isEmpty()) {
             throw new ValidationException("Пользователь с id=" + userId + " не найден");
         }
 
-        Booking booking = bookingRepository.findById(bookingId).orElseThrow(() ->
+        Booking booking = entityCache.findBooking(bookingId).orElseThrow(() ->
                 new ValidationException("Бронирование с id=" + bookingId + " не найдено"));
 
         if (!Objects.equals(booking.getItem().getOwner().getId(), userId)) {
@@ -85,11 +95,11 @@ public class Validation {
     }
 
     public void creatorOrOwnerBookingValidation(Long bookingId, Long userId) {
-        if (!userRepository.existsById(userId)) {
+        if (entityCache.findUser(userId).isEmpty()) {
             throw new ValidationException("Пользователь с id=" + userId + " не найден");
         }
 
-        Booking booking = bookingRepository.findById(bookingId).orElseThrow(() ->
+        Booking booking = entityCache.findBooking(bookingId).orElseThrow(() ->
                 new ValidationException("Бронирование с id=" + bookingId + " не найдено"));
 
         if (!booking.getBooker().getId().equals(userId) && !booking.getItem().getOwner().getId().equals(userId)) {
@@ -99,15 +109,14 @@ public class Validation {
     }
 
     public void ownerExistValidation(Long ownerId) {
-        List<Item> ownerItem = itemRepository.findAllByOwnerId(ownerId);
-        if (ownerItem.isEmpty()) {
+        if (!itemRepository.existsByOwnerId(ownerId)) {
             throw new ValidationException("Пользователь с id=" + ownerId + " не является владельцем ни одной вещи");
         }
 
     }
 
     public void userIdForGetBookingsValidation(Long ownerId) {
-        if (!userRepository.existsById(ownerId)) {
+        if (entityCache.findUser(ownerId).isEmpty()) {
             throw new InternalServerException("Пользователь с id=" + ownerId + " не найден");
         }
     }
@@ -124,5 +133,40 @@ public class Validation {
         }
     }
 
+    public void availabilityPeriodValidation(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new ValidationException("Дата окончания периода " + to + " раньше даты начала " + from);
+        }
+        // обе границы входят в период
+        if (from.plusDays(MAX_AVAILABILITY_DAYS - 1).isBefore(to)) {
+            throw new ValidationException("Период календаря не может быть больше " + MAX_AVAILABILITY_DAYS + " дней");
+        }
+    }
 
+    public void batchSizeValidation(List<?> elements) {
+        if (elements.isEmpty()) {
+            throw new ValidationException("Пакет не может быть пустым");
+        }
+        if (elements.size() > MAX_BATCH_SIZE) {
+            throw new ValidationException("Пакет не может содержать больше " + MAX_BATCH_SIZE + " элементов");
+        }
+    }
+
+    /**
+     * Проверяет элемент пакета аннотациями Bean Validation, не прерывая обработку остальных элементов.
+     * Возвращает текст нарушений или null, если элемент корректен.
+     */
+    public String batchElementViolations(Object element) {
+        if (element == null) {
+            return "Элемент пакета не может быть пустым";
+        }
+        Set<ConstraintViolation<Object>> violations = validator.validate(element);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
 }
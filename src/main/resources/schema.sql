@@ -2,23 +2,34 @@
 CREATE TABLE IF NOT EXISTS users (
     user_id SERIAL PRIMARY KEY,
     name VARCHAR(255) NOT NULL,
-    email VARCHAR(255) NOT NULL UNIQUE
+    email VARCHAR(255) NOT NULL UNIQUE,
+    version BIGINT DEFAULT 0 NOT NULL
 );
 
+-- items and bookings take ids from sequences so that Hibernate can batch inserts;
+-- the id columns have no default of their own, inserts outside Hibernate must take ids from the same sequence
+CREATE SEQUENCE IF NOT EXISTS items_seq START WITH 1 INCREMENT BY 50;
+
+CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS items (
-    item_id SERIAL PRIMARY KEY,
+    item_id BIGINT PRIMARY KEY,
     name VARCHAR(255) NOT NULL,
     description VARCHAR(255) NOT NULL,
     available BOOLEAN,
     owner_id INTEGER NOT NULL,
+    version BIGINT DEFAULT 0 NOT NULL,
     FOREIGN KEY (owner_id) REFERENCES users (user_id) ON DELETE RESTRICT
 
 );
 
+-- owner's item list and the owner's bookings join through owner_id
+CREATE INDEX IF NOT EXISTS items_owner_idx ON items (owner_id);
+
 
 CREATE TABLE IF NOT EXISTS bookings (
 
- booking_id SERIAL PRIMARY KEY,
+ booking_id BIGINT PRIMARY KEY,
  start_date TIMESTAMP WITHOUT TIME ZONE,
  end_date TIMESTAMP WITHOUT TIME ZONE,
  item_id INTEGER NOT NULL,
@@ -30,6 +41,16 @@ CREATE TABLE IF NOT EXISTS bookings (
 
 );
 
+-- booker's lists: equality on booker_id (and status for a state), keyset order by start_date, booking_id
+CREATE INDEX IF NOT EXISTS bookings_booker_start_idx ON bookings (booker_id, start_date, booking_id);
+CREATE INDEX IF NOT EXISTS bookings_booker_status_start_idx ON bookings (booker_id, status, start_date, booking_id);
+
+-- everything looked up by item: owner's lists, last/next dates, intervals, completed bookings for comments
+CREATE INDEX IF NOT EXISTS bookings_item_status_dates_idx ON bookings (item_id, status, start_date, end_date);
+
+-- WAITING bookings whose start has passed, cancelled in chunks by BookingExpiryJob
+CREATE INDEX IF NOT EXISTS bookings_status_start_idx ON bookings (status, start_date);
+
 
 CREATE TABLE IF NOT EXISTS comments (
     comment_id SERIAL PRIMARY KEY,
@@ -40,4 +61,35 @@ CREATE TABLE IF NOT EXISTS comments (
 
     FOREIGN KEY (item_id) REFERENCES items (item_id) ON DELETE RESTRICT,
     FOREIGN KEY (user_id) REFERENCES users (user_id) ON DELETE RESTRICT
-);
\ No newline at end of file
+);
+
+-- comments of the listed items
+CREATE INDEX IF NOT EXISTS comments_item_idx ON comments (item_id);
+
+-- responses stored by Idempotency-Key for POST /items and POST /bookings;
+-- the key is claimed with a NULL response and completed in the same transaction as the created entity
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    key_id VARCHAR(512) PRIMARY KEY,
+    request_hash VARCHAR(64) NOT NULL,
+    response VARCHAR(65535),
+    created TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idempotency_keys_created_idx ON idempotency_keys (created);
+
+-- booking changes written in the same transaction, drained in id order by OutboxDispatcher
+CREATE SEQUENCE IF NOT EXISTS outbox_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS outbox_events (
+    event_id BIGINT PRIMARY KEY,
+    event_type VARCHAR(32) NOT NULL,
+    booking_id BIGINT NOT NULL,
+    item_id BIGINT NOT NULL,
+    booker_id BIGINT NOT NULL,
+    status VARCHAR(255) NOT NULL,
+    start_date TIMESTAMP WITHOUT TIME ZONE,
+    end_date TIMESTAMP WITHOUT TIME ZONE,
+    created TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    attempts INT NOT NULL DEFAULT 0,
+    dead_letter BOOLEAN NOT NULL DEFAULT FALSE
+);
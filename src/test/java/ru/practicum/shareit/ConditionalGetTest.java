@@ -0,0 +1,189 @@
+package ru.practicum.shareit;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shareit;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+class ConditionalGetTest {
+
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TestData testData;
+
+    private Statistics statistics;
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        owner = testData.saveUser();
+        booker = testData.saveUser();
+        item = testData.saveItem(owner);
+    }
+
+    @Test
+    void unchangedItemIsAnsweredWithoutBodyAndComments() throws Exception {
+        String eTag = itemETag(booker);
+
+        statistics.clear();
+        mvc.perform(get("/items/{itemId}", item.getId())
+                        .header(USER_HEADER, booker.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+
+        // версия вещи и пользователь: ни сущность вещи, ни комментарии не загружаются
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+    }
+
+    @Test
+    void unchangedItemIsAnsweredToOwnerWithoutLoadingIt() throws Exception {
+        saveBooking(LocalDateTime.now().minusDays(3), Status.APPROVED);
+        saveBooking(LocalDateTime.now().plusDays(3), Status.APPROVED);
+        String eTag = itemETag(owner);
+
+        statistics.clear();
+        mvc.perform(get("/items/{itemId}", item.getId())
+                        .header(USER_HEADER, owner.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag));
+
+        // даты бронирований читаются тем же запросом, что и версия
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+        assertThat(statistics.getEntityLoadCount()).isEqualTo(1);
+    }
+
+    @Test
+    void updateAndCommentChangeItemETag() throws Exception {
+        String initial = itemETag(booker);
+
+        mvc.perform(patch("/items/{itemId}", item.getId())
+                        .header(USER_HEADER, owner.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Дрель ударная\"}"))
+                .andExpect(status().isOk());
+        String updated = itemETag(booker);
+        assertThat(updated).isNotEqualTo(initial);
+        mvc.perform(get("/items/{itemId}", item.getId())
+                        .header(USER_HEADER, booker.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, initial))
+                .andExpect(status().isOk());
+
+        saveBooking(LocalDateTime.now().minusDays(3), Status.APPROVED);
+        mvc.perform(post("/items/{itemId}/comment", item.getId())
+                        .header(USER_HEADER, booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\": \"Отличная дрель " + UUID.randomUUID() + "\"}"))
+                .andExpect(status().isOk());
+        assertThat(itemETag(booker)).isNotEqualTo(updated);
+    }
+
+    @Test
+    void renamedCommentAuthorChangesItemETag() throws Exception {
+        saveBooking(LocalDateTime.now().minusDays(3), Status.APPROVED);
+        mvc.perform(post("/items/{itemId}/comment", item.getId())
+                        .header(USER_HEADER, booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\": \"Отличная дрель\"}"))
+                .andExpect(status().isOk());
+        String eTag = itemETag(owner);
+
+        mvc.perform(patch("/users/{userId}", booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"renamed\"}"))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/items/{itemId}", item.getId())
+                        .header(USER_HEADER, owner.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.comments[0].authorName").value("renamed"));
+    }
+
+    @Test
+    void confirmationChangesOwnerETag() throws Exception {
+        Booking booking = saveBooking(LocalDateTime.now().plusDays(3), Status.WAITING);
+        String ownerView = itemETag(owner);
+        assertThat(ownerView).isNotEqualTo(itemETag(booker));
+
+        mvc.perform(patch("/bookings/{bookingId}", booking.getBookingId())
+                        .header(USER_HEADER, owner.getId())
+                        .param("approved", "true"))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/items/{itemId}", item.getId())
+                        .header(USER_HEADER, owner.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, ownerView))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, itemETag(owner)));
+    }
+
+    @Test
+    void unchangedUserIsAnsweredWithoutBody() throws Exception {
+        String eTag = mvc.perform(get("/users/{id}", owner.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mvc.perform(get("/users/{id}", owner.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        mvc.perform(patch("/users/{userId}", owner.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"renamed\"}"))
+                .andExpect(status().isOk());
+        mvc.perform(get("/users/{id}", owner.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(eTag)));
+    }
+
+    private String itemETag(User user) throws Exception {
+        String eTag = mvc.perform(get("/items/{itemId}", item.getId()).header(USER_HEADER, user.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(eTag).startsWith("\"").endsWith("\"");
+        return eTag;
+    }
+
+    private Booking saveBooking(LocalDateTime start, Status status) {
+        return testData.saveBooking(item, booker, start, start.plusDays(1), status);
+    }
+}
@@ -0,0 +1,231 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.idempotency.IdempotencyRepository;
+import ru.practicum.shareit.item.CommentRepository;
+import ru.practicum.shareit.item.ItemJpaRepository;
+import ru.practicum.shareit.item.ItemSearchIndex;
+import ru.practicum.shareit.user.UserJpaRepository;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Для каждого объявленного в репозиториях запроса выполняет его на заполненной базе, перехватывает
+ * сгенерированный SQL через статистику запросов H2 и проверяет EXPLAIN: ни одна таблица не должна читаться
+ * полным сканированием. Исключения перечислены в {@link #FULL_SCAN_EXPECTED}.
+ * H2 сам индексирует внешние ключи, PostgreSQL — нет, поэтому индекс внешнего ключа в плане допустим, только если
+ * у таблицы есть объявленный индекс с теми же первыми колонками.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shareit;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+// общий контекст с MVC-тестами: отдельный контекст построил бы поисковый индекс раньше, чем они добавят вещи
+@AutoConfigureMockMvc
+class QueryPlanTest {
+
+    private static final int USERS = 100;
+    private static final int ITEMS = 500;
+    private static final int BOOKINGS = 5000;
+
+    // выгрузка всех доступных вещей для перестроения поискового индекса и поиск по подстроке
+    private static final Set<String> FULL_SCAN_EXPECTED = Set.of(
+            "ItemJpaRepository.findAllAvailableSearchRows",
+            "ItemJpaRepository.streamAllByText");
+
+    private static final List<Class<?>> REPOSITORIES = List.of(BookingRepository.class, ItemJpaRepository.class,
+            CommentRepository.class, UserJpaRepository.class, IdempotencyRepository.class);
+
+    private static final List<String> STATEMENTS = List.of("select", "update", "delete");
+
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private Map<String, org.springframework.data.repository.Repository<?, ?>> repositories;
+    @Autowired
+    private ItemSearchIndex itemSearchIndex;
+
+    @BeforeEach
+    void seed() {
+        String suffix = UUID.randomUUID().toString();
+        jdbc.batchUpdate("INSERT INTO users (name, email) VALUES (?, ?)",
+                IntStream.range(0, USERS).mapToObj(i -> new Object[]{"user", i + "-" + suffix + "@mail.ru"}).toList());
+        List<Long> users = jdbc.queryForList("SELECT user_id FROM users WHERE email LIKE ?", Long.class,
+                "%-" + suffix + "@mail.ru");
+
+        jdbc.batchUpdate("INSERT INTO items (item_id, name, description, available, owner_id) "
+                        + "VALUES (NEXT VALUE FOR items_seq, ?, ?, TRUE, ?)",
+                IntStream.range(0, ITEMS).mapToObj(i -> new Object[]{"Дрель " + suffix, "Дрель",
+                        users.get(i % USERS)}).toList());
+        List<Long> items = jdbc.queryForList("SELECT item_id FROM items WHERE name = ?", Long.class,
+                "Дрель " + suffix);
+
+        LocalDateTime now = LocalDateTime.now();
+        Status[] statuses = Status.values();
+        jdbc.batchUpdate("INSERT INTO bookings (booking_id, start_date, end_date, item_id, booker_id, status) "
+                        + "VALUES (NEXT VALUE FOR bookings_seq, ?, ?, ?, ?, ?)",
+                IntStream.range(0, BOOKINGS).mapToObj(i -> new Object[]{
+                        Timestamp.valueOf(now.plusHours(i - BOOKINGS / 2)),
+                        Timestamp.valueOf(now.plusHours(i - BOOKINGS / 2 + 1)),
+                        items.get(i % ITEMS), users.get(i * 7 % USERS),
+                        statuses[i % statuses.length].name()}).toList());
+
+        jdbc.batchUpdate("INSERT INTO comments (content, item_id, user_id, create_date) VALUES (?, ?, ?, ?)",
+                IntStream.range(0, ITEMS).mapToObj(i -> new Object[]{"Отзыв " + i + " " + suffix,
+                        items.get(i), users.get(i % USERS), Timestamp.valueOf(now)}).toList());
+
+        jdbc.execute("ANALYZE");
+        // вещи вставлены в обход сервиса, а индекс поиска общий для всех тестов контекста
+        itemSearchIndex.rebuild();
+    }
+
+    @TestFactory
+    Stream<DynamicTest> noRepositoryQueryScansWholeTable() {
+        return REPOSITORIES.stream()
+                .flatMap(type -> Arrays.stream(type.getDeclaredMethods())
+                        .filter(method -> !method.isSynthetic())
+                        .sorted(Comparator.comparing(Method::getName))
+                        .map(method -> DynamicTest.dynamicTest(type.getSimpleName() + "." + method.getName(),
+                                () -> assertPlan(type.getSimpleName() + "." + method.getName(),
+                                        capture(repository(type), method)))));
+    }
+
+    private void assertPlan(String query, List<String> statements) {
+        assertThat(statements).as("SQL запроса %s", query).isNotEmpty();
+        Set<String> foreignKeyIndexes = uncoveredForeignKeyIndexes();
+        for (String sql : statements) {
+            String plan = jdbc.queryForObject("EXPLAIN " + sql, String.class);
+            if (FULL_SCAN_EXPECTED.contains(query)) {
+                continue;
+            }
+            assertThat(plan)
+                    .as("%s читает таблицу целиком:%n%s", query, plan)
+                    .doesNotContainIgnoringCase(".tableScan");
+            for (String index : foreignKeyIndexes) {
+                assertThat(plan)
+                        .as("%s использует неявный индекс внешнего ключа, которого нет в PostgreSQL:%n%s", query, plan)
+                        .doesNotContainPattern("\\." + index + "\\b");
+            }
+        }
+    }
+
+    private Set<String> uncoveredForeignKeyIndexes() {
+        Set<String> foreignKeyIndexes = Set.copyOf(jdbc.queryForList("SELECT INDEX_NAME "
+                + "FROM INFORMATION_SCHEMA.TABLE_CONSTRAINTS WHERE CONSTRAINT_TYPE = 'FOREIGN KEY'", String.class));
+        Map<String, String> columns = new HashMap<>();
+        Map<String, String> tables = new HashMap<>();
+        jdbc.query("SELECT TABLE_NAME, INDEX_NAME, COLUMN_NAME FROM INFORMATION_SCHEMA.INDEX_COLUMNS "
+                + "WHERE TABLE_SCHEMA = 'PUBLIC' ORDER BY INDEX_NAME, ORDINAL_POSITION", row -> {
+                    String index = row.getString("INDEX_NAME");
+                    tables.put(index, row.getString("TABLE_NAME"));
+                    columns.merge(index, row.getString("COLUMN_NAME"), (prefix, column) -> prefix + "," + column);
+                });
+        return foreignKeyIndexes.stream()
+                .filter(fk -> columns.keySet().stream()
+                        .filter(index -> !foreignKeyIndexes.contains(index))
+                        .filter(index -> tables.get(index).equals(tables.get(fk)))
+                        .noneMatch(index -> (columns.get(index) + ",").startsWith(columns.get(fk) + ",")))
+                .collect(Collectors.toSet());
+    }
+
+    // SQL, выполненный методом репозитория; статистика H2 сбрасывается при выключении
+    private List<String> capture(Object repository, Method method) {
+        Object[] args = Arrays.stream(method.getParameters()).map(QueryPlanTest::argument).toArray();
+        jdbc.execute("SET QUERY_STATISTICS TRUE");
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                Object result = invoke(repository, method, args);
+                if (result instanceof Stream<?> stream) {
+                    try (stream) {
+                        stream.forEach(row -> { });
+                    }
+                }
+            });
+            return jdbc.queryForList("SELECT SQL_STATEMENT FROM INFORMATION_SCHEMA.QUERY_STATISTICS", String.class)
+                    .stream()
+                    .filter(sql -> STATEMENTS.stream()
+                            .anyMatch(type -> sql.regionMatches(true, 0, type, 0, type.length())))
+                    .filter(sql -> !sql.contains("INFORMATION_SCHEMA"))
+                    .toList();
+        } finally {
+            jdbc.execute("SET QUERY_STATISTICS FALSE");
+        }
+    }
+
+    private Object repository(Class<?> type) {
+        return repositories.values().stream()
+                .filter(type::isInstance)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static Object invoke(Object repository, Method method, Object[] args) {
+        try {
+            return method.invoke(repository, args);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Не удалось выполнить " + method, e);
+        }
+    }
+
+    // значения нужны только для выполнения запроса: EXPLAIN строится по SQL с параметрами
+    private static Object argument(Parameter parameter) {
+        Class<?> type = parameter.getType();
+        if (type == Long.class || type == long.class) {
+            return 1L;
+        }
+        if (type == String.class) {
+            return "дрель";
+        }
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.now();
+        }
+        if (type == Pageable.class) {
+            return PageRequest.of(0, 10);
+        }
+        if (Collection.class.isAssignableFrom(type)
+                && parameter.getParameterizedType() instanceof ParameterizedType collection) {
+            Object element = collection.getActualTypeArguments()[0];
+            if (element == Long.class) {
+                return new ArrayList<>(List.of(1L, 2L, 3L));
+            }
+            if (element == Status.class) {
+                return List.of(Status.APPROVED, Status.WAITING);
+            }
+        }
+        return fail("Нет тестового значения для параметра %s типа %s", parameter.getName(),
+                parameter.getParameterizedType());
+    }
+}
@@ -0,0 +1,57 @@
+package ru.practicum.shareit;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemJpaRepository;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserJpaRepository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Сохраняет пользователей, вещи и бронирования для тестов напрямую через репозитории, в обход сервисов.
+ * База общая для всех тестов контекста, поэтому email каждого пользователя уникален.
+ */
+@Component
+@RequiredArgsConstructor
+public class TestData {
+
+    private final UserJpaRepository userRepository;
+    private final ItemJpaRepository itemRepository;
+    private final BookingRepository bookingRepository;
+
+    public User saveUser() {
+        User user = new User();
+        user.setName("user");
+        user.setEmail(UUID.randomUUID() + "@mail.ru");
+        return userRepository.save(user);
+    }
+
+    public Item saveItem(User owner) {
+        return saveItem(owner, true);
+    }
+
+    public Item saveItem(User owner, boolean available) {
+        Item item = new Item();
+        item.setName("Дрель");
+        item.setDescription("Простая дрель");
+        item.setAvailable(available);
+        item.setOwner(owner);
+        return itemRepository.save(item);
+    }
+
+    public Booking saveBooking(Item item, User booker, LocalDateTime start, LocalDateTime end, Status status) {
+        Booking booking = new Booking();
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStartDate(start);
+        booking.setEndDate(end);
+        booking.setStatus(status);
+        return bookingRepository.save(booking);
+    }
+}
@@ -0,0 +1,138 @@
+package ru.practicum.shareit.batch;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shareit;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+class BatchCreationTest {
+
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TestData testData;
+
+    private Statistics statistics;
+    private User owner;
+    private User booker;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        owner = testData.saveUser();
+        booker = testData.saveUser();
+    }
+
+    @Test
+    void createItemsInBatches() throws Exception {
+        List<String> elements = IntStream.range(0, 120)
+                .mapToObj(i -> "{\"name\": \"Дрель " + i + "\", \"description\": \"Дрель\", \"available\": true}")
+                .collect(Collectors.toCollection(ArrayList::new));
+        elements.set(7, "{\"name\": \"\", \"description\": \"Без названия\", \"available\": true}");
+
+        statistics.clear();
+        mvc.perform(post("/items/batch")
+                        .header(USER_HEADER, owner.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + String.join(",", elements) + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(120)))
+                .andExpect(jsonPath("$[0].result.id", notNullValue()))
+                .andExpect(jsonPath("$[7].index").value(7))
+                .andExpect(jsonPath("$[7].result").doesNotExist())
+                .andExpect(jsonPath("$[7].error").value("Название не может быть пустым"))
+                .andExpect(jsonPath("$[119].result.name").value("Дрель 119"));
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(119);
+        // пользователь, затем не больше трёх блоков id из последовательности и трёх пакетов INSERT
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(7);
+    }
+
+    @Test
+    void createBookingsReportsEachElement() throws Exception {
+        Item item = testData.saveItem(owner);
+        Item unavailable = testData.saveItem(owner, false);
+        LocalDateTime start = LocalDateTime.now().plusDays(1).withNano(0);
+        testData.saveBooking(item, booker, start.plusDays(20), start.plusDays(22), Status.APPROVED);
+
+        String content = "[" + String.join(",",
+                booking(item.getId(), start, start.plusDays(2)),
+                booking(item.getId(), start.plusDays(1), start.plusDays(3)),
+                booking(item.getId(), start.plusDays(2), start.plusDays(4)),
+                booking(item.getId(), start.plusDays(21), start.plusDays(23)),
+                booking(unavailable.getId(), start, start.plusDays(1)),
+                booking(-1L, start, start.plusDays(1)),
+                booking(item.getId(), start.plusDays(10), start.plusDays(9))) + "]";
+
+        mvc.perform(post("/bookings/batch")
+                        .header(USER_HEADER, booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(7)))
+                .andExpect(jsonPath("$[0].result.status").value("WAITING"))
+                .andExpect(jsonPath("$[1].error", containsString("уже забронирована")))
+                .andExpect(jsonPath("$[2].result.id", notNullValue()))
+                .andExpect(jsonPath("$[3].error", containsString("уже забронирована")))
+                .andExpect(jsonPath("$[4].error", containsString("не доступна для аренды")))
+                .andExpect(jsonPath("$[5].error").value("Вещь с id=-1 не найдена"))
+                .andExpect(jsonPath("$[6].error").value("Дата окончания должна быть позже даты начала"));
+
+        assertThat(bookingRepository.findAllByItemIdAndStatusInAndEndDateAfter(item.getId(),
+                List.of(Status.WAITING), LocalDateTime.now()))
+                .hasSize(2);
+    }
+
+    @Test
+    void rejectsOversizedBatch() throws Exception {
+        String content = IntStream.range(0, 1001)
+                .mapToObj(i -> "{\"name\": \"Дрель\", \"description\": \"Дрель\", \"available\": true}")
+                .collect(Collectors.joining(",", "[", "]"));
+
+        mvc.perform(post("/items/batch")
+                        .header(USER_HEADER, owner.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(content))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static String booking(Long itemId, LocalDateTime start, LocalDateTime end) {
+        return "{\"itemId\": " + itemId + ", \"start\": \"" + start + "\", \"end\": \"" + end + "\"}";
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.practicum.shareit.ShareItApp;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Запуск приложения на отдельной in-memory H2 без SQL-логов для бенчмарков и нагрузочных тестов.
+ */
+public final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... properties) {
+        return start(webApplicationType, Duration.ZERO, properties);
+    }
+
+    /**
+     * То же, но каждое выполнение SQL дополнительно ждёт {@code databaseLatency}, см. {@link LatencyInjectingDataSource}.
+     */
+    public static ConfigurableApplicationContext start(WebApplicationType webApplicationType, Duration databaseLatency,
+                                                       String... properties) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                // нагрузка идёт от нескольких пользователей и упёрлась бы в лимиты запросов
+                "--shareit.rate-limit.enabled=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN",
+                "--logging.level.org.springframework.orm.jpa=WARN",
+                "--logging.level.org.springframework.transaction=WARN",
+                "--logging.level.org.springframework.transaction.interceptor=WARN",
+                "--logging.level.org.springframework.orm.jpa.JpaTransactionManager=WARN",
+                "--logging.level.ru.practicum.shareit=WARN",
+                "--logging.level.ru.practicum.shareit.metrics=ERROR",
+                "--logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF"));
+        Arrays.stream(properties)
+                .map(property -> "--" + property)
+                .forEach(args::add);
+
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(ShareItApp.class)
+                .profiles("test")
+                .web(webApplicationType);
+        if (!databaseLatency.isZero()) {
+            builder.initializers(context -> context.getBeanFactory()
+                    .addBeanPostProcessor(LatencyInjectingDataSource.postProcessor(databaseLatency)));
+        }
+        return builder.run(args.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,76 @@
+package ru.practicum.shareit.benchmark;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingCursor;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Страница бронирований пользователя: загрузка сущностей с eager-связями и маппинг против JPQL-проекции
+ * в {@link BookingDto}. Аллокации смотреть с {@code -prof gc}:
+ * mvn -Pbenchmark -DskipTests integration-test -Djmh.args="BookingProjectionBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingProjectionBenchmark {
+
+    // прежний запрос списков: сущности, связи догружаются отдельными запросами
+    private static final String ENTITY_QUERY = "SELECT b FROM Booking b "
+            + "JOIN b.booker u "
+            + "WHERE u.id = :userId "
+            + "ORDER BY b.startDate DESC, b.bookingId DESC";
+
+    @Param({"10", "100"})
+    private int size;
+
+    private EntityManagerFactory entityManagerFactory;
+    private BookingRepository bookingRepository;
+
+    @Setup
+    public void setUp(SeededApplication application) {
+        entityManagerFactory = application.bean(EntityManagerFactory.class);
+        bookingRepository = application.bean(BookingRepository.class);
+    }
+
+    @Benchmark
+    public List<BookingDto> entities() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            List<Booking> bookings = entityManager.createQuery(ENTITY_QUERY, Booking.class)
+                    .setParameter("userId", DataSeeder.POWER_BOOKER_ID)
+                    .setMaxResults(size)
+                    .getResultList();
+            return BookingMapper.mapToBookingDtoToList(bookings);
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    @Benchmark
+    public List<BookingDto> projection() {
+        return bookingRepository.findAllByUserId(DataSeeder.POWER_BOOKER_ID, BookingCursor.FIRST.getStartDate(),
+                BookingCursor.FIRST.getBookingId(), PageRequest.of(0, size));
+    }
+}
@@ -0,0 +1,54 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.States;
+import ru.practicum.shareit.booking.dto.BookingDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Выборка бронирований пользователя и владельца по состояниям на заполненной базе.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingServiceBenchmark {
+
+    @Param({"ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED"})
+    private States state;
+
+    @Param({"10", "100"})
+    private int size;
+
+    private BookingService bookingService;
+
+    @Setup
+    public void setUp(SeededApplication application) {
+        bookingService = application.bean(BookingService.class);
+    }
+
+    @Benchmark
+    public List<BookingDto> byBooker() {
+        return bookingService.getAllBookingsByUserAndStates(DataSeeder.POWER_BOOKER_ID, state, null, 0, size);
+    }
+
+    @Benchmark
+    public List<BookingDto> byOwner() {
+        return bookingService.getAllBookingsByOwnerItemsAndStates(DataSeeder.POWER_OWNER_ID, state, null, 0, size);
+    }
+}
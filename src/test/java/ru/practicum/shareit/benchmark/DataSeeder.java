@@ -0,0 +1,110 @@
+package ru.practicum.shareit.benchmark;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.Status;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Заполняет пустую базу пользователями, вещами, бронированиями и комментариями пакетными INSERT.
+ * Идентификаторы идут по порядку с 1: пользователям их выдаёт база, вещам и бронированиям они задаются явно,
+ * после чего последовательности id сдвигаются за них. Пользователь {@link #POWER_BOOKER_ID} получает каждое десятое
+ * бронирование, пользователю {@link #POWER_OWNER_ID} принадлежат первые {@link #POWER_OWNER_ITEMS} вещей.
+ * Объёмы задаются системными свойствами seed.users, seed.items, seed.bookings и seed.comments
+ * (для JMH передаются через -jvmArgsAppend).
+ */
+@Getter
+@RequiredArgsConstructor
+public class DataSeeder {
+
+    public static final long POWER_BOOKER_ID = 1;
+    public static final long POWER_OWNER_ID = 2;
+    public static final int POWER_OWNER_ITEMS = 200;
+
+    public static final List<String> ITEM_NAMES = List.of("Дрель", "Пила", "Лестница", "Палатка", "Велосипед",
+            "Шуруповёрт", "Перфоратор", "Самокат", "Болгарка", "Сапборд");
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    private final int users;
+    private final int items;
+    private final int bookings;
+    private final int comments;
+
+    public static DataSeeder fromSystemProperties() {
+        return new DataSeeder(
+                Integer.getInteger("seed.users", 1_000),
+                Integer.getInteger("seed.items", 10_000),
+                Integer.getInteger("seed.bookings", 100_000),
+                Integer.getInteger("seed.comments", 5_000));
+    }
+
+    public void seed(JdbcTemplate jdbc) {
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+
+        jdbc.batchUpdate("INSERT INTO users (name, email) VALUES (?, ?)", range(users), BATCH_SIZE, (ps, i) -> {
+            ps.setString(1, "Пользователь " + i);
+            ps.setString(2, "user" + i + "@shareit.ru");
+        });
+
+        jdbc.batchUpdate("INSERT INTO items (item_id, name, description, available, owner_id) "
+                + "VALUES (?, ?, ?, ?, ?)", range(items), BATCH_SIZE, (ps, i) -> {
+                    String name = ITEM_NAMES.get(i % ITEM_NAMES.size());
+                    ps.setLong(1, i + 1);
+                    ps.setString(2, name + " №" + i);
+                    ps.setString(3, name + " в хорошем состоянии, инструкция в комплекте");
+                    ps.setBoolean(4, i % 10 != 0);
+                    ps.setLong(5, i < POWER_OWNER_ITEMS ? POWER_OWNER_ID : randomId(random, users));
+                });
+
+        jdbc.batchUpdate("INSERT INTO bookings (booking_id, start_date, end_date, item_id, booker_id, status) "
+                + "VALUES (?, ?, ?, ?, ?, ?)", range(bookings), BATCH_SIZE, (ps, i) -> {
+                    LocalDateTime start = now.plusHours(random.nextInt(2 * 365 * 24) - 365 * 24);
+                    ps.setLong(1, i + 1);
+                    ps.setTimestamp(2, Timestamp.valueOf(start));
+                    ps.setTimestamp(3, Timestamp.valueOf(start.plusHours(1 + random.nextInt(7 * 24))));
+                    ps.setLong(4, i % 10 == 0 ? randomId(random, POWER_OWNER_ITEMS) : randomId(random, items));
+                    ps.setLong(5, i % 10 == 0 ? POWER_BOOKER_ID : randomId(random, users));
+                    ps.setString(6, randomStatus(random).name());
+                });
+
+        jdbc.batchUpdate("INSERT INTO comments (content, item_id, user_id, create_date) VALUES (?, ?, ?, ?)",
+                range(comments), BATCH_SIZE, (ps, i) -> {
+                    ps.setString(1, "Отзыв №" + i + ": всё отлично");
+                    ps.setLong(2, i % 2 == 0 ? randomId(random, POWER_OWNER_ITEMS) : randomId(random, items));
+                    ps.setLong(3, randomId(random, users));
+                    ps.setTimestamp(4, Timestamp.valueOf(now.minusDays(random.nextInt(365))));
+                });
+
+        // id вещей и бронирований заданы явно; Hibernate берёт из последовательности верхнюю границу блока из 50 id
+        jdbc.execute("ALTER SEQUENCE items_seq RESTART WITH " + (items + ID_ALLOCATION_SIZE));
+        jdbc.execute("ALTER SEQUENCE bookings_seq RESTART WITH " + (bookings + ID_ALLOCATION_SIZE));
+    }
+
+    private static List<Integer> range(int size) {
+        return IntStream.range(0, size).boxed().toList();
+    }
+
+    private static long randomId(Random random, int bound) {
+        return 1 + random.nextInt(bound);
+    }
+
+    private static Status randomStatus(Random random) {
+        int value = random.nextInt(100);
+        if (value < 60) {
+            return Status.APPROVED;
+        }
+        if (value < 80) {
+            return Status.WAITING;
+        }
+        return value < 95 ? Status.REJECTED : Status.CANCELED;
+    }
+}
@@ -0,0 +1,54 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemDtoWithDates;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Чтение вещей: карточка владельца, список вещей владельца и текстовый поиск.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemServiceBenchmark {
+
+    private static final long ITEM_ID = 1L;
+
+    private ItemService itemService;
+
+    @Setup
+    public void setUp(SeededApplication application) {
+        itemService = application.bean(ItemService.class);
+    }
+
+    @Benchmark
+    public ItemDtoWithDates getByIdAsOwner() {
+        return itemService.getById(ITEM_ID, DataSeeder.POWER_OWNER_ID);
+    }
+
+    @Benchmark
+    public List<ItemDtoWithDates> getAllByOwner() {
+        return itemService.getAllByUserId(DataSeeder.POWER_OWNER_ID);
+    }
+
+    @Benchmark
+    public List<ItemDto> searchByText() {
+        return itemService.getByText("шуруповёрт", 0, 10);
+    }
+}
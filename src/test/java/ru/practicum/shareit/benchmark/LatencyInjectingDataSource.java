@@ -0,0 +1,76 @@
+package ru.practicum.shareit.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Добавляет фиксированную задержку перед каждым выполнением SQL. Встроенная H2 отвечает за микросекунды,
+ * а в проде запрос ждёт сеть и диск; с задержкой нагрузка становится преимущественно блокирующей.
+ */
+class LatencyInjectingDataSource extends DelegatingDataSource {
+
+    private final Duration latency;
+
+    LatencyInjectingDataSource(DataSource target, Duration latency) {
+        super(target);
+        this.latency = latency;
+    }
+
+    static BeanPostProcessor postProcessor(Duration latency) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource
+                        ? new LatencyInjectingDataSource(dataSource, latency)
+                        : bean;
+            }
+        };
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return proxy(Connection.class, super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return proxy(Connection.class, super.getConnection(username, password));
+    }
+
+    private <T> T proxy(Class<T> type, T target) {
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> {
+                    if (Statement.class.isAssignableFrom(type) && method.getName().startsWith("execute")) {
+                        Thread.sleep(latency);
+                    }
+                    Object result = invoke(method, target, args);
+                    if (type == Connection.class && result instanceof Statement
+                            && Statement.class.isAssignableFrom(method.getReturnType())) {
+                        return proxyStatement(method.getReturnType(), result);
+                    }
+                    return result;
+                }));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T proxyStatement(Class<T> type, Object statement) {
+        return proxy(type, (T) statement);
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Накопитель задержек одного потока. Хранит все замеры, поэтому перцентили считаются точно, без гистограммных корзин.
+ */
+class LatencySamples {
+
+    private long[] values = new long[1024];
+    private int count;
+    private long errors;
+
+    void add(long nanos) {
+        if (count == values.length) {
+            values = Arrays.copyOf(values, count * 2);
+        }
+        values[count++] = nanos;
+    }
+
+    void addError() {
+        errors++;
+    }
+
+    void addAll(LatencySamples other) {
+        if (count + other.count > values.length) {
+            values = Arrays.copyOf(values, Math.max(values.length * 2, count + other.count));
+        }
+        System.arraycopy(other.values, 0, values, count, other.count);
+        count += other.count;
+        errors += other.errors;
+    }
+
+    int count() {
+        return count;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    /**
+     * Сортирует замеры; вызывается один раз после слияния, перед чтением перцентилей.
+     */
+    void seal() {
+        Arrays.sort(values, 0, count);
+    }
+
+    long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * count) - 1;
+        return values[Math.max(0, Math.min(index, count - 1))];
+    }
+
+    long max() {
+        return count == 0 ? 0 : values[count - 1];
+    }
+}
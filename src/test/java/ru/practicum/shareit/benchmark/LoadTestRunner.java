@@ -0,0 +1,309 @@
+package ru.practicum.shareit.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.States;
+import ru.practicum.shareit.item.ItemSearchIndex;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочный прогон: поднимает приложение на случайном порту поверх H2, заполняет базу {@link DataSeeder}
+ * и в замкнутом цикле гоняет смесь запросов из нескольких потоков. По окончании печатает пропускную
+ * способность и p50/p99/p99.9 по каждому эндпоинту.
+ * <p>
+ * Запуск: {@code mvn -Pload-test -DskipTests integration-test -Dload.args="-Dload.threads=32 -Dseed.bookings=200000"}.
+ * Параметры: load.threads (число клиентов), load.warmup и load.duration (секунды), load.page-size и load.mix — веса
+ * эндпоинтов в виде {@code items=20,item=20,search=20,bookings=15,owner-bookings=15,comment=10}.
+ * <p>
+ * load.modes перечисляет режимы потоков веб-слоя: platform (пул Tomcat) и virtual (профиль virtual-threads);
+ * при нескольких режимах в конце печатается сравнение. load.db-latency-ms добавляет задержку к каждому SQL,
+ * имитируя внешнюю базу, load.pool-size задаёт размер пула соединений для всех режимов. Сравнение под блокирующей
+ * нагрузкой: {@code -Dload.modes=platform,virtual -Dload.threads=400 -Dload.db-latency-ms=20}.
+ */
+public final class LoadTestRunner {
+
+    private static final String DEFAULT_MIX = "items=20,item=20,search=20,bookings=15,owner-bookings=15,comment=10";
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+    private static final States[] STATES = States.values();
+    private static final String PLATFORM = "platform";
+    private static final String VIRTUAL = "virtual";
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+    private final AtomicLong commentSequence = new AtomicLong();
+
+    private final String baseUrl;
+    private final Fixture fixture;
+    private final Endpoint[] mix;
+    private final int pageSize;
+
+    private LoadTestRunner(String baseUrl, Fixture fixture, Endpoint[] mix, int pageSize) {
+        this.baseUrl = baseUrl;
+        this.fixture = fixture;
+        this.mix = mix;
+        this.pageSize = pageSize;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = Integer.getInteger("load.threads", 16);
+        Duration warmup = Duration.ofSeconds(Integer.getInteger("load.warmup", 10));
+        Duration duration = Duration.ofSeconds(Integer.getInteger("load.duration", 30));
+        Duration databaseLatency = Duration.ofMillis(Integer.getInteger("load.db-latency-ms", 0));
+        int poolSize = Integer.getInteger("load.pool-size", 32);
+
+        Map<String, Map<Endpoint, LatencySamples>> results = new LinkedHashMap<>();
+        for (String mode : System.getProperty("load.modes", PLATFORM).split(",")) {
+            results.put(mode.trim(), runMode(mode.trim(), clients, warmup, duration, databaseLatency, poolSize));
+        }
+        if (results.size() > 1) {
+            printComparison(results, duration);
+        }
+    }
+
+    /**
+     * Поднимает приложение в заданном режиме потоков веб-слоя и прогоняет нагрузку. Размер пула соединений
+     * одинаков во всех режимах, чтобы сравнение показывало разницу только в модели потоков.
+     */
+    private static Map<Endpoint, LatencySamples> runMode(String mode, int clients, Duration warmup, Duration duration,
+                                                         Duration databaseLatency, int poolSize) throws Exception {
+        String threads = switch (mode) {
+            case PLATFORM -> "spring.threads.virtual.enabled=false";
+            case VIRTUAL -> "spring.profiles.include=virtual-threads";
+            default -> throw new IllegalArgumentException("Неизвестный режим потоков: " + mode);
+        };
+
+        try (ConfigurableApplicationContext context = BenchmarkApplication.start(WebApplicationType.SERVLET,
+                databaseLatency, "server.port=0", threads,
+                "spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "spring.datasource.hikari.minimum-idle=" + poolSize)) {
+            JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+            DataSeeder seeder = DataSeeder.fromSystemProperties();
+            seeder.seed(jdbc);
+            context.getBean(ItemSearchIndex.class).rebuild();
+
+            LoadTestRunner runner = new LoadTestRunner(
+                    "http://localhost:" + context.getEnvironment().getProperty("local.server.port"),
+                    Fixture.load(jdbc, seeder),
+                    parseMix(System.getProperty("load.mix", DEFAULT_MIX)),
+                    Integer.getInteger("load.page-size", 10));
+
+            System.out.printf("%nРежим: %s%n", mode);
+            System.out.printf("Данные: %d пользователей, %d вещей, %d бронирований, %d комментариев%n",
+                    seeder.getUsers(), seeder.getItems(), seeder.getBookings(), seeder.getComments());
+            System.out.printf("Клиентов: %d, прогрев: %d с, замер: %d с, задержка БД: %d мс, пул соединений: %d%n",
+                    clients, warmup.toSeconds(), duration.toSeconds(), databaseLatency.toMillis(), poolSize);
+
+            Map<Endpoint, LatencySamples> results = runner.run(clients, warmup, duration);
+            print(results, duration);
+            return results;
+        }
+    }
+
+    /**
+     * Прогоняет нагрузку заданным числом клиентов. Клиенты работают на виртуальных потоках,
+     * чтобы их число не ограничивалось генератором нагрузки.
+     */
+    Map<Endpoint, LatencySamples> run(int clients, Duration warmup, Duration duration) throws Exception {
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long measureTo = measureFrom + duration.toNanos();
+
+        List<Future<Map<Endpoint, LatencySamples>>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> drive(measureFrom, measureTo)));
+            }
+
+            Map<Endpoint, LatencySamples> merged = new EnumMap<>(Endpoint.class);
+            for (Future<Map<Endpoint, LatencySamples>> future : futures) {
+                future.get().forEach((endpoint, samples) ->
+                        merged.computeIfAbsent(endpoint, e -> new LatencySamples()).addAll(samples));
+            }
+            merged.values().forEach(LatencySamples::seal);
+            return merged;
+        }
+    }
+
+    private Map<Endpoint, LatencySamples> drive(long measureFrom, long measureTo) {
+        Map<Endpoint, LatencySamples> samples = new EnumMap<>(Endpoint.class);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        long started;
+        while ((started = System.nanoTime()) < measureTo) {
+            Endpoint endpoint = mix[random.nextInt(mix.length)];
+            boolean success;
+            try {
+                int status = client.send(request(endpoint, random), HttpResponse.BodyHandlers.discarding())
+                        .statusCode();
+                success = status >= 200 && status < 300;
+            } catch (Exception e) {
+                success = false;
+            }
+            long elapsed = System.nanoTime() - started;
+
+            if (started >= measureFrom) {
+                LatencySamples endpointSamples = samples.computeIfAbsent(endpoint, e -> new LatencySamples());
+                if (success) {
+                    endpointSamples.add(elapsed);
+                } else {
+                    endpointSamples.addError();
+                }
+            }
+        }
+        return samples;
+    }
+
+    private HttpRequest request(Endpoint endpoint, ThreadLocalRandom random) {
+        return switch (endpoint) {
+            case ITEMS -> get("/items", fixture.randomOwner(random));
+            case ITEM -> get("/items/" + fixture.randomItem(random), fixture.randomUser(random));
+            case SEARCH -> get("/items/search?text=" + URLEncoder.encode(
+                    DataSeeder.ITEM_NAMES.get(random.nextInt(DataSeeder.ITEM_NAMES.size())).toLowerCase(Locale.ROOT),
+                    StandardCharsets.UTF_8), fixture.randomUser(random));
+            case BOOKINGS -> get("/bookings?state=" + STATES[random.nextInt(STATES.length)] + "&size=" + pageSize,
+                    random.nextInt(10) == 0 ? DataSeeder.POWER_BOOKER_ID : fixture.randomUser(random));
+            case OWNER_BOOKINGS -> get("/bookings/owner?state=" + STATES[random.nextInt(STATES.length)]
+                    + "&size=" + pageSize, random.nextInt(10) == 0 ? DataSeeder.POWER_OWNER_ID
+                    : fixture.randomOwner(random));
+            case COMMENT -> {
+                long[] pastBooking = fixture.randomPastBooking(random);
+                yield HttpRequest.newBuilder(URI.create(baseUrl + "/items/" + pastBooking[1] + "/comment"))
+                        .header(USER_HEADER, String.valueOf(pastBooking[0]))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(
+                                "{\"text\":\"Нагрузочный отзыв №" + commentSequence.incrementAndGet() + "\"}"))
+                        .build();
+            }
+        };
+    }
+
+    private HttpRequest get(String path, long userId) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header(USER_HEADER, String.valueOf(userId))
+                .GET()
+                .build();
+    }
+
+    static Endpoint[] parseMix(String mix) {
+        List<Endpoint> weighted = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            Endpoint endpoint = Endpoint.byKey(parts[0].trim());
+            for (int i = Integer.parseInt(parts[1].trim()); i > 0; i--) {
+                weighted.add(endpoint);
+            }
+        }
+        if (weighted.isEmpty()) {
+            throw new IllegalArgumentException("Смесь запросов пуста: " + mix);
+        }
+        return weighted.toArray(Endpoint[]::new);
+    }
+
+    static void print(Map<Endpoint, LatencySamples> results, Duration duration) {
+        System.out.printf("%n%-16s %10s %8s %10s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        long total = 0;
+        for (Map.Entry<Endpoint, LatencySamples> entry : results.entrySet()) {
+            LatencySamples samples = entry.getValue();
+            total += samples.count();
+            System.out.printf("%-16s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                    entry.getKey().key, samples.count(), samples.errors(),
+                    samples.count() / (double) duration.toSeconds(),
+                    millis(samples.percentile(50)), millis(samples.percentile(99)),
+                    millis(samples.percentile(99.9)), millis(samples.max()));
+        }
+        System.out.printf("%-16s %10d %8s %10.1f%n", "total", total, "", total / (double) duration.toSeconds());
+    }
+
+    static void printComparison(Map<String, Map<Endpoint, LatencySamples>> results, Duration duration) {
+        System.out.printf("%n%-10s %10s %8s %10s %10s %10s %10s%n",
+                "mode", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms");
+        results.forEach((mode, endpoints) -> {
+            LatencySamples all = new LatencySamples();
+            endpoints.values().forEach(all::addAll);
+            all.seal();
+            System.out.printf("%-10s %10d %8d %10.1f %10.2f %10.2f %10.2f%n",
+                    mode, all.count(), all.errors(), all.count() / (double) duration.toSeconds(),
+                    millis(all.percentile(50)), millis(all.percentile(99)), millis(all.percentile(99.9)));
+        });
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    enum Endpoint {
+        ITEMS("items"),
+        ITEM("item"),
+        SEARCH("search"),
+        BOOKINGS("bookings"),
+        OWNER_BOOKINGS("owner-bookings"),
+        COMMENT("comment");
+
+        private final String key;
+
+        Endpoint(String key) {
+            this.key = key;
+        }
+
+        static Endpoint byKey(String key) {
+            for (Endpoint endpoint : values()) {
+                if (endpoint.key.equals(key)) {
+                    return endpoint;
+                }
+            }
+            throw new IllegalArgumentException("Неизвестный эндпоинт в смеси запросов: " + key);
+        }
+    }
+
+    /**
+     * Идентификаторы из заполненной базы, из которых собираются запросы.
+     */
+    record Fixture(int users, int items, long[] owners, long[][] pastBookings) {
+
+        static Fixture load(JdbcTemplate jdbc, DataSeeder seeder) {
+            long[] owners = jdbc.queryForList("SELECT DISTINCT owner_id FROM items", Long.class).stream()
+                    .mapToLong(Long::longValue)
+                    .toArray();
+            long[][] pastBookings = jdbc.query("SELECT booker_id, item_id FROM bookings "
+                            + "WHERE status = 'APPROVED' AND end_date < CURRENT_TIMESTAMP",
+                    (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)}).toArray(long[][]::new);
+            return new Fixture(seeder.getUsers(), seeder.getItems(), owners, pastBookings);
+        }
+
+        long randomUser(ThreadLocalRandom random) {
+            return 1 + random.nextInt(users);
+        }
+
+        long randomItem(ThreadLocalRandom random) {
+            return 1 + random.nextInt(items);
+        }
+
+        long randomOwner(ThreadLocalRandom random) {
+            return owners[random.nextInt(owners.length)];
+        }
+
+        long[] randomPastBooking(ThreadLocalRandom random) {
+            return pastBookings[random.nextInt(pastBookings.length)];
+        }
+    }
+}
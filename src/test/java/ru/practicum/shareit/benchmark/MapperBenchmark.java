@@ -0,0 +1,131 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingMapper;
+import ru.practicum.shareit.item.Comment;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.CommentMapper;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemDtoWithDates;
+import ru.practicum.shareit.item.dto.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemSmallDto;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Стоимость маппинга сущностей в DTO без обращения к базе.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapperBenchmark {
+
+    private static final int LIST_SIZE = 100;
+    private static final long VIEWER_ID = 100L;
+
+    private ItemMapper itemMapper;
+    private CommentMapper commentMapper;
+    private Item item;
+    private Booking booking;
+    private List<Booking> bookings;
+    private List<Comment> comments;
+
+    @Setup
+    public void setUp() {
+        commentMapper = new CommentMapper();
+        itemMapper = new ItemMapper(null, commentMapper);
+
+        User owner = user(1L);
+        item = new Item();
+        item.setId(1L);
+        item.setName("Дрель");
+        item.setDescription("Дрель ударная, инструкция в комплекте");
+        item.setAvailable(true);
+        item.setOwner(owner);
+
+        LocalDateTime now = LocalDateTime.now();
+        bookings = LongStream.rangeClosed(1, LIST_SIZE)
+                .mapToObj(id -> {
+                    Booking value = new Booking();
+                    value.setBookingId(id);
+                    value.setStartDate(now.plusDays(id));
+                    value.setEndDate(now.plusDays(id + 1));
+                    value.setStatus(Status.APPROVED);
+                    value.setBooker(user(id + 1));
+                    value.setItem(item);
+                    return value;
+                })
+                .toList();
+        booking = bookings.getFirst();
+
+        comments = LongStream.rangeClosed(1, LIST_SIZE)
+                .mapToObj(id -> {
+                    Comment comment = new Comment();
+                    comment.setId(id);
+                    comment.setText("Отзыв №" + id);
+                    comment.setItem(item);
+                    comment.setAuthor(user(id + 1));
+                    comment.setCreated(now.minusDays(id));
+                    return comment;
+                })
+                .toList();
+    }
+
+    @Benchmark
+    public ItemDto itemDto() {
+        return itemMapper.mapToItemDto(item);
+    }
+
+    @Benchmark
+    public ItemSmallDto itemSmallDto() {
+        return ItemMapper.mapToItemSmallDto(item);
+    }
+
+    @Benchmark
+    public ItemDtoWithDates itemDtoWithDates() {
+        return itemMapper.mapToItemDtoWithDates(item, comments, VIEWER_ID);
+    }
+
+    @Benchmark
+    public BookingDto bookingDto() {
+        return BookingMapper.mapToBookingDto(booking);
+    }
+
+    @Benchmark
+    public List<BookingDto> bookingDtoList() {
+        return BookingMapper.mapToBookingDtoToList(bookings);
+    }
+
+    @Benchmark
+    public List<CommentDto> commentDtoList() {
+        return commentMapper.mapToCommentDto(comments);
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setName("Пользователь " + id);
+        user.setEmail("user" + id + "@shareit.ru");
+        return user;
+    }
+}
@@ -0,0 +1,99 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.practicum.shareit.ratelimit.RateLimitInterceptor;
+import ru.practicum.shareit.ratelimit.RateLimitProperties;
+import ru.practicum.shareit.ratelimit.RateLimiter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы лимита запросов на разрешённый запрос: сама корзина и весь {@link RateLimitInterceptor}
+ * с разбором заголовка. Лимит заведомо не достигается, чтобы мерить только путь без отказа.
+ * Варианты на четырёх потоках имеют смысл только при четырёх и более ядрах.
+ * mvn -Pbenchmark -DskipTests integration-test -Djmh.args="RateLimiterBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    private static final String ENDPOINT = "GET /items/search";
+    private static final String PATTERN = "/items/search";
+    private static final int USERS = 10_000;
+
+    private RateLimiter rateLimiter;
+    private RateLimitInterceptor interceptor;
+
+    @Setup
+    public void setUp() {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setCapacity(1_000_000);
+        limit.setPerSecond(1_000_000_000);
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getEndpoints().put(ENDPOINT, limit);
+        rateLimiter = new RateLimiter(properties);
+        interceptor = new RateLimitInterceptor(rateLimiter);
+        for (long userId = 0; userId < USERS; userId++) {
+            rateLimiter.acquire("GET", PATTERN, userId, System.nanoTime());
+        }
+    }
+
+    /**
+     * Запрос от одного из многих пользователей; у каждого потока свой запрос.
+     */
+    @State(Scope.Thread)
+    public static class Request {
+
+        private final MockHttpServletRequest request = new MockHttpServletRequest("GET", PATTERN);
+        private final MockHttpServletResponse response = new MockHttpServletResponse();
+        private Long userId;
+
+        @Setup
+        public void setUp() {
+            userId = ThreadLocalRandom.current().nextLong(USERS);
+            request.addHeader(RateLimitInterceptor.USER_HEADER, userId);
+            request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, PATTERN);
+        }
+    }
+
+    @Benchmark
+    public long bucket(Request request) {
+        return rateLimiter.acquire("GET", PATTERN, request.userId, System.nanoTime());
+    }
+
+    @Benchmark
+    public boolean interceptor(Request request) {
+        return interceptor.preHandle(request.request, request.response, null);
+    }
+
+    // все потоки списывают токены из одной корзины: худший случай для CAS
+    @Benchmark
+    @Threads(4)
+    public long sameUserFromFourThreads() {
+        return rateLimiter.acquire("GET", PATTERN, 1L, System.nanoTime());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean interceptorFromFourThreads(Request request) {
+        return interceptor.preHandle(request.request, request.response, null);
+    }
+}
@@ -0,0 +1,107 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDtoWithDates;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Список вещей владельца с {@link DataSeeder#POWER_OWNER_ITEMS} вещами: без транзакции сервиса (каждый вызов
+ * репозитория в своей транзакции), в пишущей транзакции со снимками сущностей и flush при фиксации и в read-only
+ * транзакции сервиса. Число транзакций на вызов печатается после каждого бенчмарка, аллокации — с {@code -prof gc}:
+ * mvn -Pbenchmark -DskipTests integration-test -Djmh.args="ReadOnlyTransactionBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReadOnlyTransactionBenchmark {
+
+    private final AtomicLong begun = new AtomicLong();
+
+    private ItemService proxy;
+    private ItemService target;
+    private TransactionTemplate readWrite;
+
+    @Setup
+    public void setUp(SeededApplication application) {
+        proxy = application.bean(ItemService.class);
+        target = AopTestUtils.getUltimateTargetObject(proxy);
+        PlatformTransactionManager transactionManager = application.bean(PlatformTransactionManager.class);
+        ((AbstractPlatformTransactionManager) transactionManager).addListener(new TransactionExecutionListener() {
+            @Override
+            public void beforeBegin(TransactionExecution transaction) {
+                begun.incrementAndGet();
+            }
+        });
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @Benchmark
+    public List<ItemDtoWithDates> perRepositoryCall(Transactions transactions) {
+        return transactions.count(() -> target.getAllByUserId(DataSeeder.POWER_OWNER_ID));
+    }
+
+    @Benchmark
+    public List<ItemDtoWithDates> readWriteTransaction(Transactions transactions) {
+        return transactions.count(() -> readWrite.execute(status ->
+                target.getAllByUserId(DataSeeder.POWER_OWNER_ID)));
+    }
+
+    @Benchmark
+    public List<ItemDtoWithDates> readOnlyTransaction(Transactions transactions) {
+        return transactions.count(() -> proxy.getAllByUserId(DataSeeder.POWER_OWNER_ID));
+    }
+
+    /**
+     * Начатые транзакции и вызовы сервиса за бенчмарк.
+     */
+    @State(Scope.Thread)
+    public static class Transactions {
+
+        private ReadOnlyTransactionBenchmark benchmark;
+        private long calls;
+        private long transactions;
+
+        @Setup(Level.Trial)
+        public void attach(ReadOnlyTransactionBenchmark benchmark) {
+            this.benchmark = benchmark;
+        }
+
+        @TearDown(Level.Trial)
+        public void report() {
+            System.out.printf("%nТранзакций на вызов: %.2f%n", (double) transactions / calls);
+        }
+
+        <T> T count(Supplier<T> call) {
+            long before = benchmark.begun.get();
+            T result = call.get();
+            transactions += benchmark.begun.get() - before;
+            calls++;
+            return result;
+        }
+    }
+}
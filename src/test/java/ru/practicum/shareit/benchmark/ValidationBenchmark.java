@@ -0,0 +1,76 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.validation.Validation;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверки, выполняемые контроллерами до вызова сервисов, вне контекста запроса.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private Validation validation;
+    private long bookingId;
+    private long bookerId;
+    private long commentItemId;
+    private long commentAuthorId;
+
+    @Setup
+    public void setUp(SeededApplication application) {
+        validation = application.bean(Validation.class);
+        JdbcTemplate jdbc = application.jdbc();
+
+        Map<String, Object> booking = jdbc.queryForMap("SELECT booking_id, booker_id FROM bookings "
+                + "ORDER BY booking_id LIMIT 1");
+        bookingId = ((Number) booking.get("booking_id")).longValue();
+        bookerId = ((Number) booking.get("booker_id")).longValue();
+
+        Map<String, Object> past = jdbc.queryForMap("SELECT item_id, booker_id FROM bookings "
+                + "WHERE status = 'APPROVED' AND end_date < CURRENT_TIMESTAMP ORDER BY booking_id LIMIT 1");
+        commentItemId = ((Number) past.get("item_id")).longValue();
+        commentAuthorId = ((Number) past.get("booker_id")).longValue();
+    }
+
+    @Benchmark
+    public void userId() {
+        validation.userIdValidation(DataSeeder.POWER_BOOKER_ID);
+    }
+
+    @Benchmark
+    public void owner() {
+        validation.ownerValidation(1L, DataSeeder.POWER_OWNER_ID);
+    }
+
+    @Benchmark
+    public void ownerExist() {
+        validation.ownerExistValidation(DataSeeder.POWER_OWNER_ID);
+    }
+
+    @Benchmark
+    public void creatorOrOwnerBooking() {
+        validation.creatorOrOwnerBookingValidation(bookingId, bookerId);
+    }
+
+    @Benchmark
+    public void userFromComment() {
+        validation.userFromCommentValidation(commentAuthorId, commentItemId);
+    }
+}
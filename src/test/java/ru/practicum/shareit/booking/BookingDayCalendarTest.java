@@ -0,0 +1,71 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dto.AvailabilitySlotDto;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookingDayCalendarTest {
+
+    private static final long JAN_1 = LocalDate.of(2030, 1, 1).toEpochDay();
+
+    @Test
+    void emptyCalendarIsOneFreeSlot() {
+        BookingDayCalendar calendar = new BookingDayCalendar();
+
+        assertThat(calendar.slots(JAN_1, JAN_1 + 364))
+                .containsExactly(slot(JAN_1, JAN_1 + 364, true));
+    }
+
+    @Test
+    void adjacentDaysWithSameStateAreMerged() {
+        BookingDayCalendar calendar = new BookingDayCalendar();
+        calendar.setBusy(JAN_1 + 10, JAN_1 + 12);
+        calendar.setBusy(JAN_1 + 13, JAN_1 + 14);
+        // бит левее начала календаря сдвигает его начало
+        calendar.setBusy(JAN_1 + 2, JAN_1 + 2);
+        calendar.set(JAN_1 + 11, false);
+
+        assertThat(calendar.slots(JAN_1, JAN_1 + 20)).containsExactly(
+                slot(JAN_1, JAN_1 + 1, true),
+                slot(JAN_1 + 2, JAN_1 + 2, false),
+                slot(JAN_1 + 3, JAN_1 + 9, true),
+                slot(JAN_1 + 10, JAN_1 + 10, false),
+                slot(JAN_1 + 11, JAN_1 + 11, true),
+                slot(JAN_1 + 12, JAN_1 + 14, false),
+                slot(JAN_1 + 15, JAN_1 + 20, true));
+    }
+
+    @Test
+    void windowStartingInsideBusyPeriodIsClipped() {
+        BookingDayCalendar calendar = new BookingDayCalendar();
+        calendar.setBusy(JAN_1, JAN_1 + 30);
+
+        assertThat(calendar.slots(JAN_1 + 5, JAN_1 + 6))
+                .containsExactly(slot(JAN_1 + 5, JAN_1 + 6, false));
+    }
+
+    @Test
+    void daysBeyondHorizonAreNotStored() {
+        BookingDayCalendar calendar = new BookingDayCalendar(JAN_1);
+        long farFuture = LocalDate.MAX.toEpochDay();
+        calendar.setBusy(JAN_1 + 5, farFuture);
+        // день до начала горизонта не сдвигает начало календаря
+        calendar.setBusy(LocalDate.MIN.toEpochDay(), LocalDate.MIN.toEpochDay());
+
+        long horizonEnd = JAN_1 + BookingDayCalendar.HORIZON_DAYS;
+        assertThat(calendar.slots(JAN_1, JAN_1 + 20)).containsExactly(
+                slot(JAN_1, JAN_1 + 4, true),
+                slot(JAN_1 + 5, JAN_1 + 20, false));
+        assertThat(calendar.slots(horizonEnd - 1, horizonEnd + 1)).containsExactly(
+                slot(horizonEnd - 1, horizonEnd, false),
+                slot(horizonEnd + 1, horizonEnd + 1, true));
+        assertThat(calendar.isBusy(farFuture)).isFalse();
+    }
+
+    private static AvailabilitySlotDto slot(long from, long to, boolean free) {
+        return new AvailabilitySlotDto(LocalDate.ofEpochDay(from), LocalDate.ofEpochDay(to), free);
+    }
+}
@@ -0,0 +1,152 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.outbox.BookingEventType;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.validation.RequestEntityCache;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Бронирования теста начинаются в 1990 году, а отмена идёт по времени, переданному в
+ * {@link BookingExpiryJob#expire(LocalDateTime)}: бронирования других тестов в общей базе не затрагиваются.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shareit;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+class BookingExpiryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(1990, 1, 1, 12, 0);
+
+    @Autowired
+    private BookingExpiryJob job;
+    @Autowired
+    private BookingExpiryProperties properties;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Autowired
+    private OwnerBookingCounters ownerCounters;
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private RequestEntityCache entityCache;
+    @Autowired
+    private TestData testData;
+
+    private User owner;
+    private User booker;
+    private Item item;
+    private int chunkSize;
+    private Duration pause;
+
+    @BeforeEach
+    void setUp() {
+        chunkSize = properties.getChunkSize();
+        pause = properties.getPauseBetweenChunks();
+        properties.setChunkSize(2);
+        properties.setPauseBetweenChunks(Duration.ZERO);
+
+        owner = testData.saveUser();
+        booker = testData.saveUser();
+        item = testData.saveItem(owner);
+    }
+
+    @AfterEach
+    void restore() {
+        properties.setChunkSize(chunkSize);
+        properties.setPauseBetweenChunks(pause);
+    }
+
+    @Test
+    void startedWaitingBookingsAreCancelledInChunks() {
+        List<Long> started = new ArrayList<>();
+        for (int day = 0; day < 5; day++) {
+            started.add(saveBooking(START.plusDays(day), Status.WAITING));
+        }
+        Long approved = saveBooking(START.plusDays(10), Status.APPROVED);
+        Long notStarted = saveBooking(START.plusYears(1), Status.WAITING);
+        // бронирования 1990 года давно закончились, расписание вещи их не хранит
+        assertThat(bookingIntervalIndex.isFree(item.getId(), START, START.plusHours(1))).isTrue();
+        assertThat(ownerCounters.summary(owner.getId())).containsEntry(States.WAITING, 6L);
+        double rows = meterRegistry.counter("booking.expiry.rows").count();
+        long chunks = meterRegistry.timer("booking.expiry.chunk").count();
+
+        int cancelled = job.expire(START.plusMonths(1));
+
+        assertThat(cancelled).isEqualTo(5);
+        assertThat(meterRegistry.counter("booking.expiry.rows").count() - rows).isEqualTo(5);
+        assertThat(meterRegistry.timer("booking.expiry.chunk").count() - chunks).isEqualTo(3);
+        for (Long bookingId : started) {
+            assertThat(bookingRepository.findById(bookingId).orElseThrow().getStatus()).isEqualTo(Status.CANCELED);
+            assertThat(jdbc.queryForList("SELECT event_type FROM outbox_events WHERE booking_id = ?",
+                    String.class, bookingId)).containsExactly(BookingEventType.EXPIRED.name());
+        }
+        assertThat(bookingRepository.findById(approved).orElseThrow().getStatus()).isEqualTo(Status.APPROVED);
+        assertThat(bookingRepository.findById(notStarted).orElseThrow().getStatus()).isEqualTo(Status.WAITING);
+        assertThat(ownerCounters.summary(owner.getId()))
+                .containsEntry(States.WAITING, 1L)
+                .containsEntry(States.ALL, 7L);
+    }
+
+    @Test
+    void runStopsAfterMaxChunks() {
+        int maxChunks = properties.getMaxChunksPerRun();
+        properties.setMaxChunksPerRun(1);
+        try {
+            saveBooking(START, Status.WAITING);
+            saveBooking(START.plusDays(1), Status.WAITING);
+            saveBooking(START.plusDays(2), Status.WAITING);
+
+            assertThat(job.expire(START.plusMonths(1))).isEqualTo(2);
+            assertThat(job.expire(START.plusMonths(1))).isEqualTo(1);
+        } finally {
+            properties.setMaxChunksPerRun(maxChunks);
+        }
+    }
+
+    @Test
+    void confirmationDoesNotOverwriteBookingCancelledAfterItWasLoaded() {
+        Long bookingId = saveBooking(START.plusYears(2), Status.WAITING);
+        assertThat(ownerCounters.summary(owner.getId())).containsEntry(States.WAITING, 1L);
+        // бронирование загружено проверками запроса, затем отменено и зафиксировано другим экземпляром
+        assertThat(entityCache.findBooking(bookingId).orElseThrow().getStatus()).isEqualTo(Status.WAITING);
+        jdbc.update("UPDATE bookings SET status = 'CANCELED' WHERE booking_id = ?", bookingId);
+
+        assertThatThrownBy(() -> bookingService.confirmationBooking(bookingId, true))
+                .isInstanceOf(ConflictException.class);
+
+        assertThat(jdbc.queryForObject("SELECT status FROM bookings WHERE booking_id = ?", String.class, bookingId))
+                .isEqualTo(Status.CANCELED.name());
+        assertThat(jdbc.queryForList("SELECT event_type FROM outbox_events WHERE booking_id = ?", String.class,
+                bookingId)).isEmpty();
+        assertThat(ownerCounters.summary(owner.getId())).containsEntry(States.FUTURE, 0L);
+    }
+
+    private Long saveBooking(LocalDateTime start, Status status) {
+        return testData.saveBooking(item, booker, start, start.plusHours(12), status).getBookingId();
+    }
+}
@@ -0,0 +1,228 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.dto.BookingInterval;
+import ru.practicum.shareit.booking.dto.BookingRequest;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Смена статуса бронирования попадает в расписание вещи только вместе с зафиксированной транзакцией.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:shareit;DB_CLOSE_DELAY=-1")
+class BookingIntervalIndexTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2031, 5, 10, 10, 0);
+    private static final LocalDate DAY = START.toLocalDate();
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingIntervalIndex bookingIntervalIndex;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BookingIndexProperties properties;
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private TestData testData;
+
+    private Item item;
+    private User booker;
+    private Long bookingId;
+
+    @BeforeEach
+    void setUp() {
+        User owner = testData.saveUser();
+        item = testData.saveItem(owner);
+
+        booker = testData.saveUser();
+        bookingId = testData.saveBooking(item, booker, START, START.plusHours(2), Status.WAITING).getBookingId();
+        // расписание загружается из базы с ожидающим бронированием
+        assertThat(busy()).isTrue();
+    }
+
+    @Test
+    void rolledBackRejectionKeepsDaysBusy() {
+        confirmAndRollBack(false);
+
+        assertThat(busy()).isTrue();
+        bookingService.confirmationBooking(bookingId, false);
+        assertThat(busy()).isFalse();
+    }
+
+    @Test
+    void approvalOfRejectedBookingIsRefusedAndLeavesDaysFree() {
+        bookingService.confirmationBooking(bookingId, false);
+        assertThat(busy()).isFalse();
+
+        assertThatThrownBy(() -> bookingService.confirmationBooking(bookingId, true))
+                .isInstanceOf(ValidationException.class);
+
+        assertThat(busy()).isFalse();
+        assertThat(bookingRepository.findById(bookingId).orElseThrow().getStatus()).isEqualTo(Status.REJECTED);
+    }
+
+    @Test
+    void approvalOfCanceledBookingIsRefused() {
+        Booking booking = bookingRepository.findById(bookingId).orElseThrow();
+        booking.setStatus(Status.CANCELED);
+        bookingIntervalIndex.update(bookingRepository.save(booking));
+        assertThat(busy()).isFalse();
+
+        assertThatThrownBy(() -> bookingService.confirmationBooking(bookingId, true))
+                .isInstanceOf(ValidationException.class);
+
+        assertThat(busy()).isFalse();
+        assertThat(bookingRepository.findById(bookingId).orElseThrow().getStatus()).isEqualTo(Status.CANCELED);
+    }
+
+    @Test
+    void statusChangeCommittedDuringLoadIsApplied() throws InterruptedException {
+        Item loadedItem = new Item();
+        loadedItem.setId(1L);
+        Booking rejected = new Booking();
+        rejected.setBookingId(1L);
+        rejected.setItem(loadedItem);
+        rejected.setStartDate(START);
+        rejected.setEndDate(START.plusHours(2));
+        rejected.setStatus(Status.REJECTED);
+
+        BookingRepository repository = mock(BookingRepository.class);
+        BookingIntervalIndex index = new BookingIntervalIndex(repository, new BookingIndexProperties());
+        Thread[] confirmation = new Thread[1];
+        // отклонение фиксируется, пока расписание читается из базы, и снимок его ещё не видит
+        when(repository.findAllByItemIdAndStatusInAndEndDateAfter(eq(1L), eq(BookingIntervalIndex.ACTIVE), any()))
+                .thenAnswer(invocation -> {
+                    confirmation[0] = Thread.ofPlatform().start(() -> index.update(rejected));
+                    // ждём, пока поток либо завершится, либо встанет на блокировке расписания
+                    while (confirmation[0].getState() != Thread.State.WAITING
+                            && confirmation[0].getState() != Thread.State.TERMINATED) {
+                        Thread.onSpinWait();
+                    }
+                    return List.of(interval(rejected));
+                });
+
+        index.isFree(1L, START, START.plusHours(1));
+        confirmation[0].join();
+
+        assertThat(index.isFree(1L, START, START.plusHours(1))).isTrue();
+        assertThat(index.getAvailability(1L, DAY, DAY).getFirst().isFree()).isTrue();
+    }
+
+    @Test
+    void conflictFoundOnlyInScheduleIsRecheckedInDatabase() {
+        // отмена с другого экземпляра приложения в расписание этого не попадает
+        jdbc.update("UPDATE bookings SET status = 'CANCELED' WHERE booking_id = ?", bookingId);
+        assertThat(busy()).isTrue();
+
+        BookingRequest request = new BookingRequest();
+        request.setItemId(item.getId());
+        request.setStart(START.plusHours(1));
+        request.setEnd(START.plusHours(3));
+        Long created = bookingService.create(booker.getId(), request).getId();
+
+        // расписание перечитано из базы и содержит новое бронирование
+        assertThat(bookingIntervalIndex.isFree(item.getId(), START, START.plusHours(1))).isTrue();
+        assertThat(bookingIntervalIndex.isFree(item.getId(), START.plusHours(2), START.plusHours(3))).isFalse();
+        assertThatThrownBy(() -> bookingService.create(booker.getId(), request))
+                .isInstanceOf(ConflictException.class);
+        assertThat(bookingRepository.findById(created).orElseThrow().getStatus()).isEqualTo(Status.WAITING);
+    }
+
+    @Test
+    void refreshReloadsSchedulesOlderThanMaxAge() {
+        jdbc.update("UPDATE bookings SET status = 'REJECTED' WHERE booking_id = ?", bookingId);
+        bookingIntervalIndex.refresh();
+        assertThat(busy()).isTrue();
+
+        Duration maxAge = properties.getMaxAge();
+        properties.setMaxAge(Duration.ZERO);
+        try {
+            bookingIntervalIndex.refresh();
+        } finally {
+            properties.setMaxAge(maxAge);
+        }
+
+        assertThat(busy()).isFalse();
+    }
+
+    @Test
+    void leastRecentlyUsedSchedulesAreUnloaded() {
+        BookingRepository repository = mock(BookingRepository.class);
+        BookingIndexProperties limited = new BookingIndexProperties();
+        limited.setMaxItems(3);
+        BookingIntervalIndex index = new BookingIntervalIndex(repository, limited);
+
+        for (long itemId : new long[]{2, 1, 3, 1}) {
+            index.isFree(itemId, START, START.plusHours(1));
+        }
+        // четвёртая вещь превышает предел: выгружаются вторая и третья, к которым обращались раньше первой
+        index.isFree(4L, START, START.plusHours(1));
+        index.isFree(1L, START, START.plusHours(1));
+        index.isFree(2L, START, START.plusHours(1));
+
+        verify(repository, times(1)).findAllByItemIdAndStatusInAndEndDateAfter(eq(1L), any(), any());
+        verify(repository, times(2)).findAllByItemIdAndStatusInAndEndDateAfter(eq(2L), any(), any());
+    }
+
+    private static BookingInterval interval(Booking booking) {
+        return new BookingInterval() {
+            @Override
+            public Long getBookingId() {
+                return booking.getBookingId();
+            }
+
+            @Override
+            public LocalDateTime getStartDate() {
+                return booking.getStartDate();
+            }
+
+            @Override
+            public LocalDateTime getEndDate() {
+                return booking.getEndDate();
+            }
+        };
+    }
+
+    private void confirmAndRollBack(boolean approved) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bookingService.confirmationBooking(bookingId, approved);
+            status.setRollbackOnly();
+        });
+        // после отката сущность в кэше тестового запроса сохраняет изменённый статус, следующий вызов - новый запрос
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private boolean busy() {
+        return !bookingIntervalIndex.getAvailability(item.getId(), DAY, DAY).getFirst().isFree();
+    }
+}
@@ -0,0 +1,60 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookingIntervalTreeTest {
+
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    @Test
+    void touchingIntervalsDoNotOverlap() {
+        BookingIntervalTree tree = new BookingIntervalTree();
+        tree.add(1, hours(10), hours(20));
+
+        assertThat(tree.overlaps(hours(0), hours(10))).isFalse();
+        assertThat(tree.overlaps(hours(20), hours(30))).isFalse();
+        assertThat(tree.overlaps(hours(19), hours(21))).isTrue();
+        assertThat(tree.overlaps(hours(12), hours(13))).isTrue();
+        assertThat(tree.overlaps(hours(0), hours(30))).isTrue();
+    }
+
+    @Test
+    void overlapsMatchesBruteForce() {
+        Random random = new Random(42);
+        BookingIntervalTree tree = new BookingIntervalTree();
+        Map<Long, LocalDateTime[]> expected = new HashMap<>();
+
+        for (int step = 0; step < 5_000; step++) {
+            long bookingId = random.nextInt(300);
+            if (random.nextInt(4) == 0) {
+                tree.remove(bookingId);
+                expected.remove(bookingId);
+            } else {
+                int start = random.nextInt(2_000);
+                LocalDateTime[] interval = {hours(start), hours(start + 1 + random.nextInt(48))};
+                tree.add(bookingId, interval[0], interval[1]);
+                expected.put(bookingId, interval);
+            }
+
+            int start = random.nextInt(2_000);
+            LocalDateTime from = hours(start);
+            LocalDateTime to = hours(start + 1 + random.nextInt(48));
+            boolean bruteForce = expected.values().stream()
+                    .anyMatch(interval -> interval[0].isBefore(to) && from.isBefore(interval[1]));
+
+            assertThat(tree.overlaps(from, to)).isEqualTo(bruteForce);
+            assertThat(tree.size()).isEqualTo(expected.size());
+        }
+    }
+
+    private static LocalDateTime hours(int hours) {
+        return ORIGIN.plusHours(hours);
+    }
+}
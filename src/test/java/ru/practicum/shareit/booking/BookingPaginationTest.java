@@ -0,0 +1,127 @@
+package ru.practicum.shareit.booking;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:shareit;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class BookingPaginationTest {
+
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int BOOKINGS = 7;
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private TestData testData;
+
+    private User owner;
+    private User booker;
+    // от новых к старым, как в ответах списка
+    private List<Long> history;
+
+    @BeforeEach
+    void setUp() {
+        owner = testData.saveUser();
+        booker = testData.saveUser();
+        Item item = testData.saveItem(owner);
+
+        history = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        for (int i = 0; i < BOOKINGS; i++) {
+            Booking booking = testData.saveBooking(item, booker, start.plusDays(i), start.plusDays(i).plusHours(1),
+                    Status.WAITING);
+            history.addFirst(booking.getBookingId());
+        }
+    }
+
+    @Test
+    void offsetNeedNotBeMultipleOfSize() throws Exception {
+        assertThat(ids(mvc.perform(bookerList().param("from", "5").param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(NEXT_CURSOR_HEADER))
+                .andReturn())).isEqualTo(history.subList(5, BOOKINGS));
+
+        assertThat(ids(mvc.perform(ownerList().param("from", "3").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(NEXT_CURSOR_HEADER))
+                .andReturn())).isEqualTo(history.subList(3, 5));
+    }
+
+    @Test
+    void cursorPagesThroughWholeHistory() throws Exception {
+        assertThat(pageWithCursor(this::bookerList)).isEqualTo(history);
+        assertThat(pageWithCursor(this::ownerList)).isEqualTo(history);
+    }
+
+    @Test
+    void withoutSizeWholeHistoryIsReturned() throws Exception {
+        assertThat(ids(mvc.perform(bookerList())
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(NEXT_CURSOR_HEADER))
+                .andReturn())).isEqualTo(history);
+
+        assertThat(ids(mvc.perform(ownerList().param("from", "2"))
+                .andExpect(status().isOk())
+                .andReturn())).isEqualTo(history.subList(2, BOOKINGS));
+    }
+
+    @Test
+    void malformedCursorIsRejected() throws Exception {
+        mvc.perform(bookerList().param("cursor", "не курсор").param("size", "3"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // страницы по 3: две полные с курсором и последняя неполная без него
+    private List<Long> pageWithCursor(Supplier<MockHttpServletRequestBuilder> list) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            MockHttpServletRequestBuilder request = list.get().param("size", "3");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            MvcResult result = mvc.perform(request).andExpect(status().isOk()).andReturn();
+            ids.addAll(ids(result));
+            cursor = result.getResponse().getHeader(NEXT_CURSOR_HEADER);
+            pages++;
+        } while (cursor != null);
+        assertThat(pages).isEqualTo(3);
+        return ids;
+    }
+
+    private MockHttpServletRequestBuilder bookerList() {
+        return get("/bookings").header(USER_HEADER, booker.getId());
+    }
+
+    private MockHttpServletRequestBuilder ownerList() {
+        return get("/bookings/owner").header(USER_HEADER, owner.getId());
+    }
+
+    private static List<Long> ids(MvcResult result) throws Exception {
+        List<Number> ids = JsonPath.read(result.getResponse().getContentAsString(), "$[*].id");
+        return ids.stream().map(Number::longValue).toList();
+    }
+}
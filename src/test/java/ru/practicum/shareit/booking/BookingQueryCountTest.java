@@ -0,0 +1,84 @@
+package ru.practicum.shareit.booking;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shareit;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+class BookingQueryCountTest {
+
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+    private static final int BOOKINGS = 20;
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TestData testData;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void bookerListIsOneQueryForDistinctItemsAndOwners() throws Exception {
+        User booker = testData.saveUser();
+        for (int i = 0; i < BOOKINGS; i++) {
+            testData.saveBooking(testData.saveItem(testData.saveUser()), booker, LocalDateTime.now().plusDays(i + 1),
+                    LocalDateTime.now().plusDays(i + 2), Status.WAITING);
+        }
+
+        statistics.clear();
+        mvc.perform(get("/bookings").header(USER_HEADER, booker.getId()).param("size", "" + BOOKINGS))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(BOOKINGS))
+                .andExpect(jsonPath("$[0].item.name").value("Дрель"))
+                .andExpect(jsonPath("$[0].booker.id").value(booker.getId()));
+
+        // проверка пользователя и сама выборка, без догрузки вещей, владельцев и арендаторов
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void ownerListIsOneQueryForDistinctBookers() throws Exception {
+        User owner = testData.saveUser();
+        Item item = testData.saveItem(owner);
+        for (int i = 0; i < BOOKINGS; i++) {
+            testData.saveBooking(item, testData.saveUser(), LocalDateTime.now().plusDays(i + 1),
+                    LocalDateTime.now().plusDays(i + 2), Status.WAITING);
+        }
+
+        statistics.clear();
+        mvc.perform(get("/bookings/owner").header(USER_HEADER, owner.getId()).param("size", "" + BOOKINGS))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(BOOKINGS))
+                .andExpect(jsonPath("$[0].booker.name").value("user"));
+
+        // две проверки владельца и сама выборка
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,124 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.user.User;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shareit;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+class BookingStreamingTest {
+
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+    private static final int HISTORY = BookingRepository.STREAM_FETCH_SIZE * 2 + 100;
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TestData testData;
+
+    private Statistics statistics;
+    private User owner;
+    private User booker;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        owner = testData.saveUser();
+        booker = testData.saveUser();
+        Item item = testData.saveItem(owner);
+
+        // половина истории в прошлом и подтверждена, половина в будущем и ждёт подтверждения
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < HISTORY; i++) {
+            LocalDateTime start = i % 2 == 0 ? now.minusDays(i + 2) : now.plusDays(i + 1);
+            rows.add(new Object[]{Timestamp.valueOf(start), Timestamp.valueOf(start.plusHours(1)),
+                    item.getId(), booker.getId(), i % 2 == 0 ? Status.APPROVED.name() : Status.WAITING.name()});
+        }
+        jdbc.batchUpdate("INSERT INTO bookings (booking_id, start_date, end_date, item_id, booker_id, status) "
+                + "VALUES (NEXT VALUE FOR bookings_seq, ?, ?, ?, ?, ?)", rows);
+    }
+
+    @Test
+    void streamWholeHistoryInOneQuery() throws Exception {
+        statistics.clear();
+        List<JsonNode> lines = stream("/bookings/stream", booker, "ALL");
+
+        assertThat(lines).hasSize(HISTORY);
+        assertThat(lines).extracting(line -> line.get("booker").get("id").asLong()).containsOnly(booker.getId());
+        for (int i = 1; i < lines.size(); i++) {
+            assertThat(lines.get(i - 1).get("start").asText()).isGreaterThan(lines.get(i).get("start").asText());
+        }
+        // проверка пользователя до выгрузки и сама выгрузка; связи приходят в той же строке
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void streamFiltersByState() throws Exception {
+        assertThat(stream("/bookings/stream", booker, "PAST"))
+                .hasSize(HISTORY / 2)
+                .allMatch(line -> line.get("status").asText().equals(Status.APPROVED.name()));
+        assertThat(stream("/bookings/owner/stream", owner, "WAITING"))
+                .hasSize(HISTORY / 2)
+                .allMatch(line -> line.get("status").asText().equals(Status.WAITING.name()));
+        assertThat(stream("/bookings/owner/stream", owner, "CURRENT")).isEmpty();
+    }
+
+    private List<JsonNode> stream(String path, User user, String state) throws Exception {
+        MvcResult started = mvc.perform(get(path)
+                        .header(USER_HEADER, user.getId())
+                        .param("state", state)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isEmpty()) {
+                lines.add(objectMapper.readTree(line));
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,153 @@
+package ru.practicum.shareit.booking;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shareit;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+class OwnerBookingSummaryTest {
+
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private OwnerBookingCounters ownerCounters;
+    @Autowired
+    private OwnerSummaryProperties properties;
+    @Autowired
+    private TestData testData;
+
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        owner = testData.saveUser();
+        booker = testData.saveUser();
+        item = testData.saveItem(owner);
+    }
+
+    @Test
+    void countersFollowCreationAndConfirmation() throws Exception {
+        assertThat(summary()).containsEntry("ALL", 0).containsEntry("WAITING", 0);
+
+        long approved = createBooking(LocalDateTime.now().plusDays(5));
+        long rejected = createBooking(LocalDateTime.now().plusDays(10));
+        assertThat(summary()).containsEntry("ALL", 2).containsEntry("WAITING", 2);
+
+        confirm(approved, true);
+        confirm(rejected, false);
+
+        assertThat(summary())
+                .containsEntry("ALL", 2)
+                .containsEntry("WAITING", 0)
+                .containsEntry("FUTURE", 1)
+                .containsEntry("REJECTED", 1)
+                .containsEntry("CURRENT", 0)
+                .containsEntry("PAST", 0);
+    }
+
+    @Test
+    void approvedBookingMovesToCurrentWhenStarted() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusSeconds(1);
+        Booking booking = saveBooking(start, start.plusDays(1));
+        summary();
+        confirm(booking.getBookingId(), true);
+        assertThat(summary()).containsEntry("FUTURE", 1).containsEntry("CURRENT", 0);
+
+        while (!LocalDateTime.now().isAfter(start)) {
+            Thread.sleep(100);
+        }
+        ownerCounters.sweep();
+
+        assertThat(summary()).containsEntry("FUTURE", 0).containsEntry("CURRENT", 1);
+    }
+
+    @Test
+    void reconcileReloadsDriftedOwner() throws Exception {
+        createBooking(LocalDateTime.now().plusDays(5));
+        assertThat(summary()).containsEntry("ALL", 1);
+
+        // запись в обход сервиса, как с другого экземпляра приложения
+        saveBooking(LocalDateTime.now().plusDays(7), LocalDateTime.now().plusDays(8));
+        assertThat(summary()).containsEntry("ALL", 1);
+
+        ownerCounters.reconcile();
+
+        assertThat(summary()).containsEntry("ALL", 2).containsEntry("WAITING", 2);
+    }
+
+    @Test
+    void leastRecentlyUsedOwnerIsUnloaded() throws Exception {
+        int maxOwners = properties.getMaxOwners();
+        properties.setMaxOwners(1);
+        try {
+            long approved = createBooking(LocalDateTime.now().plusDays(5));
+            confirm(approved, true);
+            assertThat(summary()).containsEntry("ALL", 1).containsEntry("FUTURE", 1);
+
+            ownerCounters.summary(booker.getId());
+            // выгруженный владелец читается из базы заново и видит запись в обход сервиса
+            saveBooking(LocalDateTime.now().plusDays(7), LocalDateTime.now().plusDays(8));
+            ownerCounters.sweep();
+
+            assertThat(summary()).containsEntry("ALL", 2).containsEntry("WAITING", 1).containsEntry("FUTURE", 1);
+        } finally {
+            properties.setMaxOwners(maxOwners);
+        }
+    }
+
+    private Map<String, Integer> summary() throws Exception {
+        String body = mvc.perform(get("/bookings/owner/summary").header(USER_HEADER, owner.getId()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readerForMapOf(Integer.class).readValue(body);
+    }
+
+    private long createBooking(LocalDateTime start) throws Exception {
+        String body = mvc.perform(post("/bookings")
+                        .header(USER_HEADER, booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"itemId\": " + item.getId() + ", \"start\": \"" + start + "\", \"end\": \""
+                                + start.plusDays(1) + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+
+    private void confirm(long bookingId, boolean approved) throws Exception {
+        mvc.perform(patch("/bookings/{bookingId}", bookingId)
+                        .header(USER_HEADER, owner.getId())
+                        .param("approved", String.valueOf(approved)))
+                .andExpect(status().isOk());
+    }
+
+    private Booking saveBooking(LocalDateTime start, LocalDateTime end) {
+        return testData.saveBooking(item, booker, start, end, Status.WAITING);
+    }
+}
@@ -0,0 +1,188 @@
+package ru.practicum.shareit.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.user.User;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Две базы H2 вместо основной и реплики. Реплика заполняется копией основной в {@link #replicate()},
+ * поэтому всё записанное после копии видно только при чтении из основной базы.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaRoutingTest.PRIMARY_URL,
+        "shareit.datasource.replica.url=" + ReplicaRoutingTest.REPLICA_URL,
+        "shareit.datasource.replica.read-your-writes=1m"
+})
+@AutoConfigureMockMvc
+class ReplicaRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+    @Autowired
+    private ReplicaRoutingDataSource routingDataSource;
+    @Autowired
+    private TestData testData;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        primary = new JdbcTemplate(connectTo(PRIMARY_URL));
+        replica = new JdbcTemplate(connectTo(REPLICA_URL));
+        owner = testData.saveUser();
+        booker = testData.saveUser();
+        item = testData.saveItem(owner);
+        saveBooking(LocalDateTime.now().plusDays(1));
+        replicate();
+    }
+
+    @Test
+    void readOnlyTransactionsReadFromReplica() throws Exception {
+        saveBooking(LocalDateTime.now().plusDays(3));
+
+        mvc.perform(get("/bookings/owner").header(USER_HEADER, owner.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    void userReadsOwnWritesFromPrimary() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(5);
+        mvc.perform(post("/bookings")
+                        .header(USER_HEADER, booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"itemId\": " + item.getId() + ", \"start\": \"" + start + "\", \"end\": \""
+                                + start.plusDays(1) + "\"}"))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/bookings").header(USER_HEADER, booker.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+        // владелец ничего не менял и читает из реплики, куда бронирование ещё не попало
+        mvc.perform(get("/bookings/owner").header(USER_HEADER, owner.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    void cachesAreSeededFromPrimary() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(3);
+        // бронирование есть только в основной базе, владелец читает без закрепления
+        saveBooking(start);
+
+        mvc.perform(get("/items/{itemId}/availability", item.getId())
+                        .header(USER_HEADER, owner.getId())
+                        .param("from", start.toLocalDate().toString())
+                        .param("to", start.toLocalDate().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].free").value(false));
+        mvc.perform(get("/bookings/owner/summary").header(USER_HEADER, owner.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ALL").value(2));
+
+        mvc.perform(post("/bookings")
+                        .header(USER_HEADER, testData.saveUser().getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"itemId\": " + item.getId() + ", \"start\": \"" + start.plusHours(1)
+                                + "\", \"end\": \"" + start.plusHours(2) + "\"}"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void asyncRequestDoesNotLeaveThreadPinned() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(5);
+        mvc.perform(post("/bookings")
+                        .header(USER_HEADER, booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"itemId\": " + item.getId() + ", \"start\": \"" + start + "\", \"end\": \""
+                                + start.plusDays(1) + "\"}"))
+                .andExpect(status().isOk());
+
+        // арендатор только что менял данные, поэтому выгрузка закрепляется за основной базой
+        mvc.perform(get("/bookings/stream").header(USER_HEADER, booker.getId()))
+                .andExpect(request().asyncStarted());
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try (Connection connection = routingDataSource.getConnection()) {
+            assertThat(connection.getMetaData().getURL()).startsWith("jdbc:h2:mem:routing-replica");
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+    }
+
+    @Test
+    void unavailableReplicaFallsBackToPrimary() throws SQLException {
+        ReplicaProperties properties = new ReplicaProperties();
+        DataSource missing = connectTo("jdbc:h2:mem:missing;IFEXISTS=TRUE");
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(connectTo(PRIMARY_URL), missing, properties,
+                new SimpleMeterRegistry());
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        try {
+            try (Connection connection = routing.getConnection()) {
+                assertThat(connection.getMetaData().getURL()).startsWith("jdbc:h2:mem:routing-primary");
+            }
+
+            properties.setFallback(false);
+            ReplicaRoutingDataSource strict = new ReplicaRoutingDataSource(connectTo(PRIMARY_URL), missing,
+                    properties, new SimpleMeterRegistry());
+            assertThatThrownBy(strict::getConnection).isInstanceOf(SQLException.class);
+        } finally {
+            TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        }
+    }
+
+    // копия основной базы вместе с данными, как у реплики без отставания
+    private void replicate() {
+        replica.execute("DROP ALL OBJECTS");
+        for (String statement : primary.queryForList("SCRIPT", String.class)) {
+            replica.execute(statement);
+        }
+    }
+
+    private DataSource connectTo(String url) {
+        return new DriverManagerDataSource(url, dataSourceProperties.determineUsername(),
+                dataSourceProperties.determinePassword());
+    }
+
+    private void saveBooking(LocalDateTime start) {
+        testData.saveBooking(item, booker, start, start.plusDays(1), Status.WAITING);
+    }
+}
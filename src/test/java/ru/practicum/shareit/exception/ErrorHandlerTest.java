@@ -0,0 +1,42 @@
+package ru.practicum.shareit.exception;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ErrorHandlerTest {
+
+    private final ErrorHandler handler = new ErrorHandler();
+
+    @Test
+    void bookingOverlapIsConflictWithFixedMessage() {
+        SQLException sql = new SQLException(
+                "ERROR: conflicting key value violates exclusion constraint \"bookings_no_overlap\"", "23P01");
+        DataIntegrityViolationException e = new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", sql, "bookings_no_overlap"));
+
+        ResponseEntity<ErrorResponse> response = handler.handleDataIntegrityViolationException(e);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getBody().getError()).isEqualTo("Вещь уже забронирована на пересекающиеся даты");
+    }
+
+    @Test
+    void otherViolationsDoNotExposeSql() {
+        SQLException sql = new SQLException("Unique index or primary key violation: \"PUBLIC.PRIMARY_KEY_9 ON "
+                + "PUBLIC.IDEMPOTENCY_KEYS(IDEMPOTENCY_KEY)\"; SQL statement: insert into idempotency_keys", "23505");
+        DataIntegrityViolationException e = new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", sql, "PRIMARY_KEY_9"));
+
+        ResponseEntity<ErrorResponse> response = handler.handleDataIntegrityViolationException(e);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(response.getBody().getError()).doesNotContain("idempotency", "SQL");
+    }
+}
@@ -0,0 +1,213 @@
+package ru.practicum.shareit.idempotency;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.exception.ConflictException;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemJpaRepository;
+import ru.practicum.shareit.user.User;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shareit;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+class IdempotencyTest {
+
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ItemJpaRepository itemRepository;
+    @Autowired
+    private IdempotencyStore store;
+    @Autowired
+    private IdempotencyService idempotencyService;
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TestData testData;
+
+    private Statistics statistics;
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        owner = testData.saveUser();
+        booker = testData.saveUser();
+        item = testData.saveItem(owner);
+    }
+
+    @Test
+    void replayReturnsStoredBookingWithoutStatements() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String body = bookingBody(LocalDateTime.now().plusDays(5));
+
+        String first = createBooking(key, body).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        statistics.clear();
+        String replay = createBooking(key, body).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(replay).isEqualTo(first);
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    void replayFallsBackToDatabase() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String body = "{\"name\": \"Пила\", \"description\": \"Ручная пила\", \"available\": true}";
+
+        String first = createItem(key, body).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        // вытесняем записи из памяти, как после перезапуска
+        store.purge(LocalDateTime.now().plusYears(1));
+        statistics.clear();
+        String replay = createItem(key, body).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(replay).isEqualTo(first);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(itemRepository.findAllByOwnerId(owner.getId())).hasSize(2);
+    }
+
+    @Test
+    void keyIsScopedAndBoundToRequestBody() throws Exception {
+        String key = UUID.randomUUID().toString();
+        LocalDateTime start = LocalDateTime.now().plusDays(20);
+
+        createBooking(key, bookingBody(start)).andExpect(status().isOk());
+        createBooking(key, bookingBody(start.plusDays(3))).andExpect(status().isConflict());
+        // тот же ключ для другого эндпоинта — другой запрос
+        createItem(key, "{\"name\": \"Пила\", \"description\": \"Ручная пила\", \"available\": true}")
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void failedRequestIsNotStored() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String body = "{\"itemId\": " + Long.MAX_VALUE + ", \"start\": \"" + LocalDateTime.now().plusDays(40)
+                + "\", \"end\": \"" + LocalDateTime.now().plusDays(41) + "\"}";
+
+        createBooking(key, body).andExpect(status().isNotFound());
+        createBooking(key, body).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void expiredKeyNotYetPurgedIsTakenOver() throws Exception {
+        String key = UUID.randomUUID().toString();
+        String body = "{\"name\": \"Пила\", \"description\": \"Ручная пила\", \"available\": true}";
+
+        String first = createItem(key, body).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        // запись старше TTL, но purgeExpired её ещё не удалил
+        jdbc.update("UPDATE idempotency_keys SET created = ? WHERE key_id LIKE ?",
+                LocalDateTime.now().minusDays(2), "% " + key);
+        store.purge(LocalDateTime.now().plusYears(1));
+
+        String second = createItem(key, body).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(second).isNotEqualTo(first);
+        assertThat(itemRepository.findAllByOwnerId(owner.getId())).hasSize(3);
+        assertThat(createItem(key, body).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).isEqualTo(second);
+    }
+
+    @Test
+    void keyIsRolledBackWithEntity() {
+        String key = UUID.randomUUID().toString();
+        Item saw = new Item();
+        saw.setName("Пила");
+        saw.setDescription("Ручная пила");
+        saw.setAvailable(true);
+        saw.setOwner(owner);
+
+        assertThatThrownBy(() -> idempotencyService.execute(key, owner.getId(), "POST /items", "пила", Item.class,
+                () -> {
+                    itemRepository.save(saw);
+                    throw new ConflictException("сбой после сохранения вещи");
+                })).isInstanceOf(ConflictException.class);
+
+        assertThat(itemRepository.findAllByOwnerId(owner.getId())).hasSize(1);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM idempotency_keys WHERE key_id LIKE ?", Long.class,
+                "% " + key)).isZero();
+    }
+
+    @Test
+    void storeIsBoundedAndKeepsRequestsInProgress() {
+        IdempotencyProperties properties = new IdempotencyProperties();
+        properties.setMaxEntries(2);
+        properties.setTtl(Duration.ofMinutes(1));
+        IdempotencyStore bounded = new IdempotencyStore(properties);
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThat(bounded.claim("running", "h", now)).isNull();
+        for (int i = 0; i < 5; i++) {
+            assertThat(bounded.claim("done-" + i, "h", now)).isNull();
+            bounded.complete("done-" + i, "h", "{}", now);
+        }
+
+        assertThat(bounded.size()).isEqualTo(2);
+        assertThat(bounded.claim("running", "h", now)).matches(IdempotencyStore.Entry::isInProgress);
+        assertThat(bounded.claim("done-4", "h", now)).isNotNull();
+        assertThat(bounded.claim("done-4", "h", now.plusMinutes(2))).isNull();
+        bounded.complete("done-4", "h", "{}", now.plusMinutes(2));
+
+        // ответы, восстановленные из базы, не занимались этим экземпляром, но тоже вытесняются
+        for (int i = 0; i < 5; i++) {
+            bounded.complete("restored-" + i, "h", "{}", now.plusMinutes(2));
+        }
+        assertThat(bounded.size()).isEqualTo(2);
+        assertThat(bounded.claim("running", "h", now)).matches(IdempotencyStore.Entry::isInProgress);
+        assertThat(bounded.claim("restored-4", "h", now.plusMinutes(2))).isNotNull();
+        assertThat(bounded.claim("done-4", "h", now.plusMinutes(2))).isNull();
+    }
+
+    private ResultActions createBooking(String key, String body) throws Exception {
+        return mvc.perform(post("/bookings")
+                .header(USER_HEADER, booker.getId())
+                .header(IdempotencyService.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+    }
+
+    private ResultActions createItem(String key, String body) throws Exception {
+        return mvc.perform(post("/items")
+                .header(USER_HEADER, owner.getId())
+                .header(IdempotencyService.HEADER, key)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+    }
+
+    private String bookingBody(LocalDateTime start) {
+        return "{\"itemId\": " + item.getId() + ", \"start\": \"" + start + "\", \"end\": \""
+                + start.plusDays(1) + "\"}";
+    }
+}
@@ -0,0 +1,110 @@
+package ru.practicum.shareit.item;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:shareit;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class ItemAvailabilityTest {
+
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+    private static final LocalDate MARCH_1 = LocalDate.of(2030, 3, 1);
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private TestData testData;
+
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        owner = testData.saveUser();
+        booker = testData.saveUser();
+        item = testData.saveItem(owner);
+    }
+
+    @Test
+    void periodIsLimitedToYearInclusive() throws Exception {
+        availability(MARCH_1, MARCH_1.plusDays(365))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].end").value(MARCH_1.plusDays(365).toString()));
+        availability(MARCH_1, MARCH_1.plusDays(366))
+                .andExpect(status().isBadRequest());
+        availability(MARCH_1, MARCH_1.minusDays(1))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void bookingOccupiesDaysUntilRejected() throws Exception {
+        String body = mvc.perform(post("/bookings")
+                        .header(USER_HEADER, booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"itemId\": " + item.getId() + ", \"start\": \"2030-03-10T10:00:00\", "
+                                + "\"end\": \"2030-03-12T10:00:00\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Number bookingId = JsonPath.read(body, "$.id");
+
+        availability(MARCH_1, MARCH_1.plusDays(30))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].end").value("2030-03-09"))
+                .andExpect(jsonPath("$[1].start").value("2030-03-10"))
+                .andExpect(jsonPath("$[1].end").value("2030-03-12"))
+                .andExpect(jsonPath("$[1].free").value(false))
+                .andExpect(jsonPath("$[2].start").value("2030-03-13"));
+
+        mvc.perform(patch("/bookings/{bookingId}", bookingId)
+                        .header(USER_HEADER, owner.getId())
+                        .param("approved", "false"))
+                .andExpect(status().isOk());
+
+        availability(MARCH_1, MARCH_1.plusDays(30))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].free").value(true));
+    }
+
+    @Test
+    void bookingEndingBeyondHorizonIsRejected() throws Exception {
+        mvc.perform(post("/bookings")
+                        .header(USER_HEADER, booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"itemId\": " + item.getId() + ", \"start\": \"2030-03-10T10:00:00\", "
+                                + "\"end\": \"9999-12-31T10:00:00\"}"))
+                .andExpect(status().isBadRequest());
+
+        availability(MARCH_1, MARCH_1.plusDays(30))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].free").value(true));
+    }
+
+    private ResultActions availability(LocalDate from, LocalDate to) throws Exception {
+        return mvc.perform(get("/items/{itemId}/availability", item.getId())
+                .header(USER_HEADER, owner.getId())
+                .param("from", from.toString())
+                .param("to", to.toString()));
+    }
+}
@@ -0,0 +1,100 @@
+package ru.practicum.shareit.item;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shareit;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+class ItemQueryCountTest {
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private ItemJpaRepository itemRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TestData testData;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void ownerItemListIssuesConstantNumberOfStatements() throws Exception {
+        User smallOwner = createOwnerWithItems(3);
+        User largeOwner = createOwnerWithItems(30);
+
+        long smallCount = countStatements(smallOwner, 3);
+        long largeCount = countStatements(largeOwner, 30);
+
+        assertThat(largeCount).isEqualTo(smallCount);
+    }
+
+    private long countStatements(User owner, int itemCount) throws Exception {
+        statistics.clear();
+        mvc.perform(get("/items").header("X-Sharer-User-Id", owner.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(itemCount))
+                .andExpect(jsonPath("$[0].lastBooking").isNotEmpty())
+                .andExpect(jsonPath("$[0].nextBooking").isNotEmpty())
+                .andExpect(jsonPath("$[0].comments.length()").value(2))
+                .andExpect(jsonPath("$[0].comments[0].authorName").isNotEmpty());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private User createOwnerWithItems(int itemCount) {
+        User owner = testData.saveUser();
+        User booker = testData.saveUser();
+        for (int i = 0; i < itemCount; i++) {
+            Item item = new Item();
+            item.setName("Дрель " + i);
+            item.setDescription("Аккумуляторная дрель");
+            item.setAvailable(true);
+            item.setOwner(owner);
+            item = itemRepository.save(item);
+
+            LocalDateTime now = LocalDateTime.now();
+            testData.saveBooking(item, booker, now.minusDays(3), now.minusDays(2), Status.APPROVED);
+            testData.saveBooking(item, booker, now.plusDays(2), now.plusDays(3), Status.APPROVED);
+            saveComment(item, testData.saveUser());
+            saveComment(item, testData.saveUser());
+        }
+        return owner;
+    }
+
+    private void saveComment(Item item, User author) {
+        Comment comment = new Comment();
+        comment.setItem(item);
+        comment.setAuthor(author);
+        comment.setText("Отличная вещь " + UUID.randomUUID());
+        comment.setCreated(LocalDateTime.now());
+        commentRepository.save(comment);
+    }
+}
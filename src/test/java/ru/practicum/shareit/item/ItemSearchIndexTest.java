@@ -0,0 +1,286 @@
+package ru.practicum.shareit.item;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSearchRow;
+import ru.practicum.shareit.item.dto.UpdateItemRequest;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserJpaRepository;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shareit;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ItemSearchIndexTest {
+
+    @Autowired
+    private ItemJpaRepository itemRepository;
+    @Autowired
+    private UserJpaRepository userRepository;
+    @Autowired
+    private ItemSearchIndex itemSearchIndex;
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ItemSearchProperties searchProperties;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void searchMatchesLikeQuery() {
+        User owner = new User();
+        owner.setName("owner");
+        owner.setEmail(UUID.randomUUID() + "@mail.ru");
+        owner = userRepository.save(owner);
+
+        saveAndIndex(owner, "Дрель", "Простая дрель", true);
+        saveAndIndex(owner, "Аккумуляторная ДРЕЛЬ", "Аккумулятор в комплекте", true);
+        saveAndIndex(owner, "Отвёртка", "Аккумуляторная отвёртка", true);
+        saveAndIndex(owner, "Дрель ударная", "Сломана", false);
+        saveAndIndex(owner, "Pump", "Bike pump, 12 bar", true);
+
+        Item renamed = saveAndIndex(owner, "Дрель старая", "Без батареи", true);
+        renamed.setName("Молоток");
+        itemSearchIndex.index(itemRepository.save(renamed));
+
+        for (String text : List.of("дрель", "ДрЕлЬ", "акку", "ккумуляторная отв", "д", "ь", "re", "bike p",
+                "12 bar", " ", "молоток", "старая", "нет такого")) {
+            assertThat(itemSearchIndex.search(text, 0, Integer.MAX_VALUE))
+                    .as("поиск по '%s'", text)
+                    .extracting(ItemDto::getId)
+                    .containsExactlyInAnyOrderElementsOf(likeMatches(text));
+        }
+    }
+
+    @Test
+    void searchRanksNameHitsFirstAndPages() {
+        User owner = new User();
+        owner.setName("owner");
+        owner.setEmail(UUID.randomUUID() + "@mail.ru");
+        owner = userRepository.save(owner);
+        String term = "перфоратор" + UUID.randomUUID().toString().substring(0, 8);
+
+        Item inDescription = saveAndIndex(owner, "Молоток", "Почти " + term, true);
+        Item twiceInDescription = saveAndIndex(owner, "Кувалда", term + " и " + term, true);
+        Item inName = saveAndIndex(owner, term, "Без насадок", true);
+        Item inBoth = saveAndIndex(owner, term, "Настоящий " + term, true);
+        Item inNameToo = saveAndIndex(owner, term + " малый", "Без кейса", true);
+
+        assertThat(itemSearchIndex.search(term, 0, 10))
+                .extracting(ItemDto::getId)
+                .containsExactly(inBoth.getId(), inName.getId(), inNameToo.getId(), twiceInDescription.getId(),
+                        inDescription.getId());
+        assertThat(itemSearchIndex.search(term, 1, 2))
+                .extracting(ItemDto::getId)
+                .containsExactly(inName.getId(), inNameToo.getId());
+        assertThat(itemSearchIndex.search(term, 5, 10)).isEmpty();
+        // без size возвращаются все результаты, пока их не больше maxSize
+        assertThat(itemService.getByText(term, 0, null))
+                .extracting(ItemDto::getId)
+                .containsExactly(inBoth.getId(), inName.getId(), inNameToo.getId(), twiceInDescription.getId(),
+                        inDescription.getId());
+        assertThat(itemService.getByText(term, 3, null))
+                .extracting(ItemDto::getId)
+                .containsExactly(twiceInDescription.getId(), inDescription.getId());
+
+        int maxSize = searchProperties.getMaxSize();
+        searchProperties.setMaxSize(2);
+        try {
+            // без size и с большим size страница ограничена maxSize
+            assertThat(itemService.getByText(term, 0, null))
+                    .extracting(ItemDto::getId)
+                    .containsExactly(inBoth.getId(), inName.getId());
+            assertThat(itemService.getByText(term, 1, 100))
+                    .extracting(ItemDto::getId)
+                    .containsExactly(inName.getId(), inNameToo.getId());
+        } finally {
+            searchProperties.setMaxSize(maxSize);
+        }
+    }
+
+    @Test
+    void databaseFallbackRanksAndPagesStreamedRows() {
+        User owner = new User();
+        owner.setName("owner");
+        owner.setEmail(UUID.randomUUID() + "@mail.ru");
+        owner = userRepository.save(owner);
+        // '%' в тексте — спецсимвол LIKE, поэтому поиск идёт запросом к базе
+        String term = "скидка 50% " + UUID.randomUUID().toString().substring(0, 8);
+
+        Item inDescription = saveAndIndex(owner, "Молоток", "Сегодня " + term, true);
+        Item inName = saveAndIndex(owner, term, "Без насадок", true);
+        Item inBoth = saveAndIndex(owner, term, "Настоящая " + term, true);
+        // подходит под LIKE, но буквально запрос не содержит: идёт после всех буквальных совпадений
+        Item wildcardOnly = saveAndIndex(owner, "Пила", term.replace("%", "0"), true);
+
+        assertThat(itemService.getByText(term, 0, 10))
+                .extracting(ItemDto::getId)
+                .containsExactly(inBoth.getId(), inName.getId(), inDescription.getId(), wildcardOnly.getId());
+        assertThat(itemService.getByText(term, 1, 1))
+                .extracting(ItemDto::getId)
+                .containsExactly(inName.getId());
+    }
+
+    @Test
+    void databaseFallbackKeepsWildcardMatches() {
+        User owner = new User();
+        owner.setName("owner");
+        owner.setEmail(UUID.randomUUID() + "@mail.ru");
+        owner = userRepository.save(owner);
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+
+        Item drill = saveAndIndex(owner, "Drill " + suffix, "Cordless", true);
+        saveAndIndex(owner, "Drum " + suffix, "Snare", true);
+
+        assertThat(itemService.getByText("dr_ll " + suffix, 0, 10))
+                .extracting(ItemDto::getId)
+                .containsExactly(drill.getId());
+        for (String text : List.of("dr_ll " + suffix, "dr%" + suffix, "%" + suffix)) {
+            assertThat(itemService.getByText(text, 0, 10))
+                    .as("поиск по '%s'", text)
+                    .extracting(ItemDto::getId)
+                    .containsExactlyInAnyOrderElementsOf(likeMatches(text));
+        }
+    }
+
+    @Test
+    void rebuildKeepsItemsChangedAfterSnapshot() {
+        User owner = new User();
+        owner.setId(1L);
+        Item stale = item(1L, owner, "Дрель", true);
+        Item removed = item(2L, owner, "Пила", true);
+        Item renamed = item(1L, owner, "Молоток", true);
+        Item created = item(3L, owner, "Рубанок", true);
+
+        ItemJpaRepository repository = mock(ItemJpaRepository.class);
+        ItemSearchIndex index = new ItemSearchIndex(repository);
+        // пока снимок читается, вещи меняются и индексируются с новыми данными
+        when(repository.findAllAvailableSearchRows()).thenAnswer(invocation -> {
+            index.index(renamed);
+            index.index(created);
+            index.remove(removed.getId());
+            return List.of(row(stale), row(removed));
+        });
+
+        index.rebuild();
+
+        assertThat(index.search("дрель", 0, 10)).isEmpty();
+        assertThat(index.search("пила", 0, 10)).isEmpty();
+        assertThat(index.search("молоток", 0, 10)).extracting(ItemDto::getId).containsExactly(1L);
+        assertThat(index.search("рубанок", 0, 10)).extracting(ItemDto::getId).containsExactly(3L);
+    }
+
+    @Test
+    void rebuildReadsItemsWithOneStatement() {
+        User owner = new User();
+        owner.setName("owner");
+        owner.setEmail(UUID.randomUUID() + "@mail.ru");
+        owner = userRepository.save(owner);
+        String term = "рубанок" + UUID.randomUUID().toString().substring(0, 8);
+        Item item = saveAndIndex(owner, term, "Ручной", true);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        itemSearchIndex.rebuild();
+
+        // владельцы не загружаются по одному на вещь
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(itemSearchIndex.search(term, 0, 10)).extracting(ItemDto::getOwnerId)
+                .containsExactly(owner.getId());
+        assertThat(itemSearchIndex.search(term, 0, 10)).extracting(ItemDto::getId).containsExactly(item.getId());
+    }
+
+    @Test
+    void rolledBackUpdateIsNotIndexed() {
+        User owner = new User();
+        owner.setName("owner");
+        owner.setEmail(UUID.randomUUID() + "@mail.ru");
+        owner = userRepository.save(owner);
+        String term = "стамеска" + UUID.randomUUID().toString().substring(0, 8);
+        Item item = saveAndIndex(owner, "Рубанок", "Ручной", true);
+        UpdateItemRequest request = new UpdateItemRequest();
+        request.setName(term);
+        request.setDescription("Ручной");
+        request.setAvailable(true);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            itemService.update(item.getId(), request);
+            status.setRollbackOnly();
+        });
+        assertThat(itemSearchIndex.search(term, 0, 10)).isEmpty();
+
+        itemService.update(item.getId(), request);
+        assertThat(itemSearchIndex.search(term, 0, 10)).extracting(ItemDto::getId).containsExactly(item.getId());
+    }
+
+    private List<Long> likeMatches(String text) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            try (Stream<ItemSearchRow> rows = itemRepository.streamAllByText(text)) {
+                return rows.map(ItemSearchRow::getId).toList();
+            }
+        });
+    }
+
+    private static ItemSearchRow row(Item item) {
+        return new ItemSearchRow() {
+            @Override
+            public Long getId() {
+                return item.getId();
+            }
+
+            @Override
+            public String getName() {
+                return item.getName();
+            }
+
+            @Override
+            public String getDescription() {
+                return item.getDescription();
+            }
+
+            @Override
+            public Long getOwnerId() {
+                return item.getOwner().getId();
+            }
+        };
+    }
+
+    private static Item item(Long id, User owner, String name, boolean available) {
+        Item item = new Item();
+        item.setId(id);
+        item.setName(name);
+        item.setDescription("");
+        item.setAvailable(available);
+        item.setOwner(owner);
+        return item;
+    }
+
+    private Item saveAndIndex(User owner, String name, String description, boolean available) {
+        Item item = new Item();
+        item.setName(name);
+        item.setDescription(description);
+        item.setAvailable(available);
+        item.setOwner(owner);
+        item = itemRepository.save(item);
+        itemSearchIndex.index(item);
+        return item;
+    }
+}
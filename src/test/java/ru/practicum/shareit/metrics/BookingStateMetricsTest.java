@@ -0,0 +1,89 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserJpaRepository;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shareit;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+class BookingStateMetricsTest {
+
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private UserJpaRepository userRepository;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = new User();
+        user.setName("user");
+        user.setEmail(UUID.randomUUID() + "@mail.ru");
+        user = userRepository.save(user);
+    }
+
+    @Test
+    void repositoryInvocationsAreTaggedByState() throws Exception {
+        mvc.perform(get("/bookings").header(USER_HEADER, user.getId()).param("state", "PAST"))
+                .andExpect(status().isOk());
+
+        assertThat(meterRegistry.find("spring.data.repository.invocations")
+                .tags("method", "findAllByUserIdAndStatePast", "booking.state", "PAST")
+                .timer())
+                .isNotNull()
+                .satisfies(timer -> assertThat(timer.count()).isPositive());
+    }
+
+    @Test
+    void httpRequestsAreTaggedByState() throws Exception {
+        mvc.perform(get("/bookings").header(USER_HEADER, user.getId()).param("state", "FUTURE"))
+                .andExpect(status().isOk());
+        mvc.perform(get("/bookings").header(USER_HEADER, user.getId()))
+                .andExpect(status().isOk());
+
+        assertThat(meterRegistry.find("http.server.requests")
+                .tags("uri", "/bookings", "booking.state", "FUTURE")
+                .timer()).isNotNull();
+        assertThat(meterRegistry.find("http.server.requests")
+                .tags("uri", "/bookings", "booking.state", "ALL")
+                .timer()).isNotNull();
+    }
+
+    @Test
+    void metricsAreExposedThroughActuator() throws Exception {
+        mvc.perform(get("/users/{id}", user.getId())).andExpect(status().isOk());
+
+        mvc.perform(get("/actuator/metrics/http.server.requests").param("tag", "uri:/users/{id}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.availableTags[?(@.tag == 'booking.state')]").exists());
+    }
+
+    @Test
+    void stateIsDerivedFromMethodName() {
+        assertThat(BookingStateRepositoryTagsProvider.stateOf("findAllByOwnerIdAndStateCurrent"))
+                .isEqualTo("CURRENT");
+        assertThat(BookingStateRepositoryTagsProvider.stateOf("findAllByOwnerId")).isEqualTo("ALL");
+        assertThat(BookingStateRepositoryTagsProvider.stateOf("findById")).isEqualTo("none");
+    }
+}
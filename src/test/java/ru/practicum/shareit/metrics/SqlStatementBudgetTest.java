@@ -0,0 +1,195 @@
+package ru.practicum.shareit.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.BookingController;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemController;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserController;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shareit;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+class SqlStatementBudgetTest {
+
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+    private static final Set<Class<?>> CONTROLLERS = Set.of(ItemController.class, BookingController.class,
+            UserController.class);
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private SqlStatementBudgetProperties properties;
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    private RequestMappingHandlerMapping handlerMapping;
+    @Autowired
+    private TestData testData;
+
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        owner = testData.saveUser();
+        booker = testData.saveUser();
+        item = testData.saveItem(owner);
+        testData.saveItem(owner);
+        LocalDateTime now = LocalDateTime.now();
+        testData.saveBooking(item, booker, now.minusDays(3), now.minusDays(2), Status.APPROVED);
+        testData.saveBooking(item, booker, now.plusDays(3), now.plusDays(4), Status.WAITING);
+    }
+
+    @Test
+    void everyEndpointHasBudget() {
+        List<String> endpoints = handlerMapping.getHandlerMethods().entrySet().stream()
+                .filter(entry -> CONTROLLERS.contains(entry.getValue().getBeanType()))
+                .flatMap(entry -> entry.getKey().getMethodsCondition().getMethods().stream()
+                        .flatMap(method -> entry.getKey().getPatternValues().stream()
+                                .map(pattern -> method + " " + pattern)))
+                .toList();
+
+        assertThat(endpoints).isNotEmpty();
+        assertThat(properties.getEndpoints()).containsKeys(endpoints.toArray(String[]::new));
+    }
+
+    @Test
+    void itemEndpoints() throws Exception {
+        assertWithinBudget("POST /items", post("/items")
+                .header(USER_HEADER, owner.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Пила\", \"description\": \"Ручная пила\", \"available\": true}"));
+        assertWithinBudget("PATCH /items/{itemId}", patch("/items/{itemId}", item.getId())
+                .header(USER_HEADER, owner.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Дрель ударная\"}"));
+        assertWithinBudget("GET /items/{itemId}", get("/items/{itemId}", item.getId())
+                .header(USER_HEADER, owner.getId()));
+        assertWithinBudget("GET /items/{itemId}", get("/items/{itemId}", item.getId())
+                .header(USER_HEADER, booker.getId()));
+        assertWithinBudget("GET /items/{itemId}/availability", get("/items/{itemId}/availability", item.getId())
+                .header(USER_HEADER, booker.getId())
+                .param("from", LocalDate.now().toString())
+                .param("to", LocalDate.now().plusDays(30).toString()));
+        assertWithinBudget("GET /items", get("/items")
+                .header(USER_HEADER, owner.getId()));
+        assertWithinBudget("GET /items/search", get("/items/search")
+                .header(USER_HEADER, booker.getId())
+                .param("text", "дрель"));
+        assertWithinBudget("POST /items/{itemId}/comment", post("/items/{itemId}/comment", item.getId())
+                .header(USER_HEADER, booker.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"text\": \"Отличная дрель " + UUID.randomUUID() + "\"}"));
+    }
+
+    @Test
+    void bookingEndpoints() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(10);
+        MvcResult created = assertWithinBudget("POST /bookings", post("/bookings")
+                .header(USER_HEADER, booker.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"itemId\": " + item.getId() + ", \"start\": \"" + start + "\", \"end\": \""
+                        + start.plusDays(1) + "\"}"));
+        String bookingId = created.getResponse().getContentAsString().replaceAll(".*?\"id\":(\\d+).*", "$1");
+
+        assertWithinBudget("PATCH /bookings/{bookingId}", patch("/bookings/{bookingId}", bookingId)
+                .header(USER_HEADER, owner.getId())
+                .param("approved", "true"));
+        assertWithinBudget("GET /bookings/{bookingId}", get("/bookings/{bookingId}", bookingId)
+                .header(USER_HEADER, booker.getId()));
+        for (String state : List.of("ALL", "CURRENT", "PAST", "FUTURE", "WAITING", "REJECTED")) {
+            assertWithinBudget("GET /bookings", get("/bookings")
+                    .header(USER_HEADER, booker.getId())
+                    .param("state", state));
+            assertWithinBudget("GET /bookings/owner", get("/bookings/owner")
+                    .header(USER_HEADER, owner.getId())
+                    .param("state", state));
+        }
+        assertWithinBudget("GET /bookings/stream", get("/bookings/stream")
+                .header(USER_HEADER, booker.getId()));
+        assertWithinBudget("GET /bookings/owner/stream", get("/bookings/owner/stream")
+                .header(USER_HEADER, owner.getId()));
+        assertWithinBudget("GET /bookings/owner/summary", get("/bookings/owner/summary")
+                .header(USER_HEADER, owner.getId()));
+    }
+
+    @Test
+    void userEndpoints() throws Exception {
+        MvcResult created = assertWithinBudget("POST /users", post("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"user\", \"email\": \"" + UUID.randomUUID() + "@mail.ru\"}"));
+        String userId = created.getResponse().getContentAsString().replaceAll(".*?\"id\":(\\d+).*", "$1");
+
+        assertWithinBudget("GET /users", get("/users"));
+        assertWithinBudget("GET /users/{id}", get("/users/{id}", owner.getId()));
+        assertWithinBudget("PATCH /users/{userId}", patch("/users/{userId}", owner.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"owner\"}"));
+        assertWithinBudget("DELETE /users/{userId}", delete("/users/{userId}", userId));
+    }
+
+    @Test
+    void headerIsExposedInDiagnosticMode() throws Exception {
+        SqlStatementCounter counter = new SqlStatementCounter();
+        SqlStatementBudgetProperties diagnostic = new SqlStatementBudgetProperties();
+        diagnostic.setExposeHeader(true);
+        SqlStatementBudgetFilter filter = new SqlStatementBudgetFilter(counter, diagnostic, new SimpleMeterRegistry());
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/items/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request, response, (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/items/{itemId}");
+            counter.inspect("select 1");
+            counter.inspect("select 2");
+            res.getWriter().write("{}");
+        });
+
+        assertThat(response.getHeader(SqlStatementBudgetFilter.STATEMENT_COUNT_HEADER)).isEqualTo("2");
+        assertThat(response.getContentAsString()).isEqualTo("{}");
+    }
+
+    private MvcResult assertWithinBudget(String endpoint, RequestBuilder request) throws Exception {
+        MvcResult result = mvc.perform(request).andExpect(status().is2xxSuccessful()).andReturn();
+        String matched = result.getRequest().getMethod() + " "
+                + result.getRequest().getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        long statements = (long) result.getRequest().getAttribute(SqlStatementBudgetFilter.STATEMENT_COUNT_ATTRIBUTE);
+
+        assertThat(matched).isEqualTo(endpoint);
+        assertThat(statements)
+                .as("SQL-запросы %s", endpoint)
+                .isLessThanOrEqualTo(properties.budgetFor(endpoint));
+        return result;
+    }
+}
@@ -0,0 +1,157 @@
+package ru.practicum.shareit.outbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shareit;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+class OutboxTest {
+
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private BookingOutbox outbox;
+    @Autowired
+    private TestData testData;
+
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        owner = testData.saveUser();
+        booker = testData.saveUser();
+        item = testData.saveItem(owner);
+    }
+
+    @Test
+    void bookingChangesAreWrittenWithTheChange() throws Exception {
+        Long bookingId = createAndApproveBooking();
+
+        assertThat(jdbc.queryForList("SELECT event_type FROM outbox_events WHERE booking_id = ? ORDER BY event_id",
+                String.class, bookingId))
+                .containsExactly(BookingEventType.CREATED.name(), BookingEventType.APPROVED.name());
+        Booking booking = bookingRepository.findById(bookingId).orElseThrow();
+        assertThatThrownBy(() -> outbox.record(BookingEventType.CREATED, booking))
+                .isInstanceOf(IllegalTransactionStateException.class);
+    }
+
+    @Test
+    void failedBatchIsDeliveredAgain() throws Exception {
+        Long bookingId = createAndApproveBooking();
+        List<BookingEvent> received = new ArrayList<>();
+        boolean[] failed = {false};
+        BookingEventSubscriber flaky = events -> {
+            if (!failed[0]) {
+                failed[0] = true;
+                throw new IllegalStateException("Подписчик недоступен");
+            }
+        };
+        OutboxProperties properties = new OutboxProperties();
+        properties.setMaxBatchesPerPoll(Integer.MAX_VALUE);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OutboxDispatcher dispatcher = new OutboxDispatcher(jdbc, transactionManager,
+                List.of(received::addAll, flaky), properties, meterRegistry);
+
+        assertThat(dispatcher.dispatch()).isPositive();
+        assertThat(meterRegistry.counter("outbox.dispatch.failures").count()).isEqualTo(1);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM outbox_events", Long.class)).isZero();
+        // пачка ушла первому подписчику до ошибки второго и пришла ещё раз по одному событию
+        List<BookingEvent> ours = received.stream()
+                .filter(event -> event.getBookingId().equals(bookingId))
+                .toList();
+        assertThat(ours).extracting(BookingEvent::getType).containsExactly(BookingEventType.CREATED,
+                BookingEventType.APPROVED, BookingEventType.CREATED, BookingEventType.APPROVED);
+        assertThat(ours.get(0).getItemId()).isEqualTo(item.getId());
+        assertThat(ours.get(0).getBookerId()).isEqualTo(booker.getId());
+    }
+
+    @Test
+    void eventRejectedMaxAttemptsTimesIsDeadLettered() throws Exception {
+        Long bookingId = createAndApproveBooking();
+        Long poisonId = jdbc.queryForObject("SELECT MIN(event_id) FROM outbox_events WHERE booking_id = ?",
+                Long.class, bookingId);
+        List<BookingEvent> received = new ArrayList<>();
+        BookingEventSubscriber subscriber = events -> {
+            if (events.stream().anyMatch(event -> event.getId().equals(poisonId))) {
+                throw new IllegalStateException("Событие не разбирается");
+            }
+            received.addAll(events);
+        };
+        OutboxProperties properties = new OutboxProperties();
+        properties.setMaxAttempts(3);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        OutboxDispatcher dispatcher = new OutboxDispatcher(jdbc, transactionManager, List.of(subscriber),
+                properties, meterRegistry);
+
+        dispatcher.dispatch();
+        // остальные события не ждут отвергнутого
+        assertThat(received).extracting(BookingEvent::getBookingId).contains(bookingId);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM outbox_events", Long.class)).isEqualTo(1);
+        assertThat(jdbc.queryForObject("SELECT attempts FROM outbox_events WHERE event_id = ?", Integer.class,
+                poisonId)).isEqualTo(1);
+
+        dispatcher.dispatch();
+        dispatcher.dispatch();
+        assertThat(jdbc.queryForObject("SELECT dead_letter FROM outbox_events WHERE event_id = ?", Boolean.class,
+                poisonId)).isTrue();
+        assertThat(meterRegistry.counter("outbox.events.dead-lettered").count()).isEqualTo(1);
+
+        assertThat(dispatcher.dispatch()).isZero();
+        assertThat(meterRegistry.counter("outbox.dispatch.failures").count()).isEqualTo(3);
+        jdbc.update("DELETE FROM outbox_events WHERE event_id = ?", poisonId);
+    }
+
+    private Long createAndApproveBooking() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        String created = mvc.perform(post("/bookings")
+                        .header(USER_HEADER, booker.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"itemId\": " + item.getId() + ", \"start\": \"" + start + "\", \"end\": \""
+                                + start.plusDays(1) + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Long bookingId = Long.valueOf(created.replaceAll(".*?\"id\":(\\d+).*", "$1"));
+        mvc.perform(patch("/bookings/{bookingId}", bookingId)
+                        .header(USER_HEADER, owner.getId())
+                        .param("approved", "true"))
+                .andExpect(status().isOk());
+        return bookingId;
+    }
+}
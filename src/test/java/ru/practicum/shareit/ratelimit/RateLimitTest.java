@@ -0,0 +1,98 @@
+package ru.practicum.shareit.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.user.User;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shareit;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+class RateLimitTest {
+
+    private static final String ENDPOINT = "GET /items/search";
+    private static final String PATTERN = "/items/search";
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private RateLimitProperties properties;
+    @Autowired
+    private TestData testData;
+
+    @Test
+    void exhaustedUserGetsTooManyRequestsWithRetryAfter() throws Exception {
+        User greedy = testData.saveUser();
+        User other = testData.saveUser();
+        int capacity = properties.getEndpoints().get(ENDPOINT).getCapacity();
+
+        // пока идут запросы, корзина успевает немного пополниться
+        int allowed = 0;
+        ResultActions denied = search(greedy);
+        while (denied.andReturn().getResponse().getStatus() == HttpStatus.OK.value()) {
+            allowed++;
+            assertThat(allowed).isLessThan(capacity * 2);
+            denied = search(greedy);
+        }
+        assertThat(allowed).isGreaterThanOrEqualTo(capacity);
+        denied.andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+
+        // лимит свой у каждого пользователя и эндпоинта
+        search(other).andExpect(status().isOk());
+        mvc.perform(get("/items").header(RateLimitInterceptor.USER_HEADER, greedy.getId()))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void bucketRefillsAndIdleBucketsAreEvicted() {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setCapacity(2);
+        limit.setPerSecond(1);
+        RateLimitProperties limits = new RateLimitProperties();
+        limits.getEndpoints().put(ENDPOINT, limit);
+        RateLimiter rateLimiter = new RateLimiter(limits);
+        long now = System.nanoTime();
+
+        assertThat(rateLimiter.acquire("GET", PATTERN, 1L, now)).isZero();
+        assertThat(rateLimiter.acquire("GET", PATTERN, 1L, now)).isZero();
+        assertThat(rateLimiter.acquire("GET", PATTERN, 1L, now)).isEqualTo(SECOND);
+        assertThat(rateLimiter.acquire("GET", PATTERN, 1L, now + SECOND / 2)).isEqualTo(SECOND / 2);
+        assertThat(rateLimiter.acquire("GET", PATTERN, 1L, now + SECOND)).isZero();
+        assertThat(rateLimiter.acquire("GET", PATTERN, 1L, now + SECOND)).isPositive();
+        // эндпоинты без лимита и без лимита по умолчанию не ограничиваются
+        assertThat(rateLimiter.acquire("GET", "/items", 1L, now)).isZero();
+
+
+        // корзина первого пользователя давно полна, второго — ещё нет
+        limits.setIdleTimeout(Duration.ZERO);
+        RateLimiter idle = new RateLimiter(limits);
+        idle.acquire("GET", PATTERN, 1L, now - 10 * SECOND);
+        idle.acquire("GET", PATTERN, 2L, now + 10 * SECOND);
+        idle.evictIdle();
+        assertThat(idle.size()).isEqualTo(1);
+    }
+
+    private ResultActions search(User user) throws Exception {
+        return mvc.perform(get("/items/search")
+                .header(RateLimitInterceptor.USER_HEADER, user.getId())
+                .param("text", "дрель"));
+    }
+}
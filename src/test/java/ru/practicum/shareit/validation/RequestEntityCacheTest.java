@@ -0,0 +1,143 @@
+package ru.practicum.shareit.validation;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import ru.practicum.shareit.TestData;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.Status;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.user.User;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shareit;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureMockMvc
+class RequestEntityCacheTest {
+
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+
+    @Autowired
+    private MockMvc mvc;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private TestData testData;
+
+    private Statistics statistics;
+    private User owner;
+    private User booker;
+    private Item item;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        owner = testData.saveUser();
+        booker = testData.saveUser();
+        item = testData.saveItem(owner);
+    }
+
+    @Test
+    void updateItem() throws Exception {
+        long statements = count(patch("/items/{itemId}", item.getId())
+                .header(USER_HEADER, owner.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Дрель ударная\"}"));
+
+        // пользователь, вещь, UPDATE
+        assertThat(statements).isEqualTo(3);
+    }
+
+    @Test
+    void getItem() throws Exception {
+        long statements = count(get("/items/{itemId}", item.getId())
+                .header(USER_HEADER, booker.getId()));
+
+        // пользователь, версия вещи для ETag, вещь, комментарии
+        assertThat(statements).isEqualTo(4);
+    }
+
+    @Test
+    void createBooking() throws Exception {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        long statements = count(post("/bookings")
+                .header(USER_HEADER, booker.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"itemId\": " + item.getId() + ", \"start\": \"" + start + "\", \"end\": \""
+                        + start.plusDays(1) + "\"}"));
+
+        // пользователь, вещь, интервалы бронирований вещи (один раз на вещь), INSERT бронирования и события outbox
+        // и раз на 50 вставок — следующий блок id из bookings_seq и outbox_seq
+        assertThat(statements).isBetween(5L, 7L);
+    }
+
+    @Test
+    void approveBooking() throws Exception {
+        Booking booking = saveBooking(Status.WAITING, LocalDateTime.now().plusDays(1));
+        long statements = count(patch("/bookings/{bookingId}", booking.getBookingId())
+                .header(USER_HEADER, owner.getId())
+                .param("approved", "true"));
+
+        // пользователь, бронирование, UPDATE бронирования и версии вещи, INSERT события outbox
+        // и раз на 50 событий — следующий блок id из outbox_seq
+        assertThat(statements).isBetween(5L, 6L);
+    }
+
+    @Test
+    void getBooking() throws Exception {
+        Booking booking = saveBooking(Status.WAITING, LocalDateTime.now().plusDays(1));
+        long statements = count(get("/bookings/{bookingId}", booking.getBookingId())
+                .header(USER_HEADER, booker.getId()));
+
+        // бронирование вместе с букером
+        assertThat(statements).isEqualTo(1);
+    }
+
+    @Test
+    void createComment() throws Exception {
+        saveBooking(Status.APPROVED, LocalDateTime.now().minusDays(2));
+        long statements = count(post("/items/{itemId}/comment", item.getId())
+                .header(USER_HEADER, booker.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"text\": \"Отличная дрель " + UUID.randomUUID() + "\"}"));
+
+        // вещь, пользователь, завершённые бронирования, INSERT, UPDATE версии вещи
+        assertThat(statements).isEqualTo(5);
+    }
+
+    @Test
+    void getUser() throws Exception {
+        long statements = count(get("/users/{id}", owner.getId()));
+
+        // пользователь
+        assertThat(statements).isEqualTo(1);
+    }
+
+    private long count(RequestBuilder request) throws Exception {
+        statistics.clear();
+        mvc.perform(request).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+
+    private Booking saveBooking(Status status, LocalDateTime start) {
+        return testData.saveBooking(item, booker, start, start.plusDays(1), status);
+    }
+}